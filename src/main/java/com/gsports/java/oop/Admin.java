@@ -42,6 +42,16 @@ public class Admin extends User{
         return "A" + String.format("%03d", ++Admin.adminCount);
     }
     
+    /**
+     * Generates the sales report from the orders an order index holds for the period,
+     * without going through the orders outside it.
+     */
+    public String generateSalesReport(OrderIndex orderIndex, List<Product> products,
+                                LocalDateTime startDate, LocalDateTime endDate) {
+        return generateSalesReport(new ArrayList<>(orderIndex.ordersBetween(startDate, endDate)),
+                products, startDate, endDate);
+    }
+
     public String generateSalesReport(List<Order> orders, List<Product> products, 
                                 LocalDateTime startDate, LocalDateTime endDate) {
         StringBuilder report = new StringBuilder();
@@ -107,7 +117,7 @@ public class Admin extends User{
         // Process all order items to calculate per-category totals
         for (Order order : filteredOrders) {
             for (CartItem item : order.getItems()) {
-                String category = item.getProduct().getProductType();
+                String category = item.getProductType();
                 double itemRevenue = item.getSubtotal();
                 int quantity = item.getQuantity();
                 
@@ -146,8 +156,8 @@ public class Admin extends User{
         // Collect product sales data
         for (Order order : filteredOrders) {
             for (CartItem item : order.getItems()) {
-                String productId = item.getProduct().getProdID();
-                String productName = item.getProduct().getProdName();
+                String productId = item.getProductId();
+                String productName = item.getProductName();
                 int quantity = item.getQuantity();
                 double revenue = item.getSubtotal();
                 
@@ -1,25 +1,35 @@
 package com.gsports.java.oop;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A customer's cart. Items are keyed by product ID in the order they were added, so adding,
+ * updating and removing an item does not scan the cart, and the total is adjusted by each
+ * change instead of being re-summed. Stored as the same items list and total as before.
+ */
 public class Cart {
     private String cartId;
     private String userId;
-    private ArrayList<CartItem> items;
+    private final Map<String, CartItem> items = new LinkedHashMap<>();
+    // Read-only copy of the items for index-based access; rebuilt after the items change
+    private List<CartItem> itemList;
     private double totalAmount;
 
     public Cart() {
         this.cartId = generateCartId();
-        this.items = new ArrayList<>();
         this.totalAmount = 0.0;
     }
 
     public Cart(String userId) {
         this.cartId = generateCartId();
         this.userId = userId;
-        this.items = new ArrayList<>();
         this.totalAmount = 0.0;
     }
 
@@ -40,10 +50,32 @@ public class Cart {
         this.userId = userId;
     }
 
+    /**
+     * @return The items in the order they were added; change them through the cart's methods
+     */
     public List<CartItem> getItems() {
-        return items;
+        if (itemList == null) {
+            itemList = Collections.unmodifiableList(new ArrayList<>(items.values()));
+        }
+        return itemList;
+    }
+
+    // Used when reading a stored cart; the total is worked out from the items
+    public void setItems(List<CartItem> storedItems) {
+        items.clear();
+        itemList = null;
+        totalAmount = 0.0;
+        for (CartItem item : storedItems) {
+            CartItem previous = items.put(item.getProductId(), item);
+            if (previous != null) {
+                totalAmount -= previous.getSubtotal();
+            }
+            totalAmount += item.getSubtotal();
+        }
     }
 
+    // Written for compatibility, but never read back since it follows from the items
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     public double getTotalAmount() {
         return totalAmount;
     }
@@ -68,42 +100,24 @@ public class Cart {
             return;
         }
 
-        for (CartItem item : items) {
-            if (item.getProduct().getProdID().equals(product.getProdID())) {
-                item.setQuantity(item.getQuantity() + quantity);
-                recalculateTotal();
-                System.out.println("Added " + quantity + " of " + product.getProdName() + " to your cart.");
-                return;
-            }
+        CartItem item = items.get(product.getProdID());
+        if (item != null) {
+            setQuantity(item, item.getQuantity() + quantity);
+            System.out.println("Added " + quantity + " of " + product.getProdName() + " to your cart.");
+            return;
         }
 
         CartItem newItem = new CartItem(product, quantity);
-        items.add(newItem);
-        recalculateTotal();
+        items.put(newItem.getProductId(), newItem);
+        itemList = null;
+        totalAmount += newItem.getSubtotal();
         System.out.println("\n" + product.getProdName() + " has been added to your cart!");
     }
 
-    private void recalculateTotal() {
-        totalAmount = 0.0;
-        for (CartItem item : items) {
-            totalAmount += item.getSubtotal();
-        }
-    }
-
     public void removeItem(String productId) {
-        String removedProdName = "";
-        for (CartItem item : items) {
-            if (item.getProduct().getProdID().equals(productId)) {
-                removedProdName = item.getProduct().getProdName();
-                break;
-            }
-        }
-
-        items.removeIf(item -> item.getProduct().getProdID().equals(productId));
-        recalculateTotal();
-
-        if (!removedProdName.isEmpty()) {
-            System.out.println(removedProdName = " has been removed from your cart.");
+        CartItem removed = remove(productId);
+        if (removed != null) {
+            System.out.println(removed.getProductName() + " has been removed from your cart.");
         } else {
             System.out.println("The specified item wasn't in your cart.");
         }
@@ -111,8 +125,7 @@ public class Cart {
 
     public void removeItem(int index) {
         if (index >= 0 && index < items.size()) {
-            items.remove(index);
-            recalculateTotal();
+            remove(getItems().get(index).getProductId());
             System.out.println("Item removed successfully.");
         } else {
             System.out.println("Invalid item index.");
@@ -125,39 +138,32 @@ public class Cart {
             return;
         }
 
-        for (CartItem item : items) {
-            if (item.getProduct().getProdID().equals(productId)) {
-                if (item.getProduct().getStock() < newQuantity) {
-                    System.out.println("Sorry, we only have " + item.getProduct().getStock() + " of this item in stock ");
-                }
-                item.setQuantity(newQuantity);
-                recalculateTotal();
-                System.out.println("Updated " + item.getProduct().getProdName() + " quantity to " + newQuantity);
-                return;
-            }
+        CartItem item = items.get(productId);
+        if (item == null) {
+            System.out.println("The specified item isn't in your cart yet.");
+            return;
         }
-        System.out.println("The specified item isn't in your cart yet.");
+        if (item.getProduct() != null && item.getProduct().getStock() < newQuantity) {
+            System.out.println("Sorry, we only have " + item.getProduct().getStock() + " of this item in stock ");
+        }
+        setQuantity(item, newQuantity);
+        System.out.println("Updated " + item.getProductName() + " quantity to " + newQuantity);
     }
 
     public void updateItemQuantity(int index, int newQuantity) {
         if (index >= 0 && index < items.size()) {
-            CartItem item = items.get(index);
-            item.setQuantity(newQuantity);
+            CartItem item = getItems().get(index);
             if (newQuantity <= 0) {
-                String prodName = item.getProduct().getProdName();
-                items.remove(index);
-                recalculateTotal();
-                System.out.println(prodName + " has been removed from your cart.");
+                remove(item.getProductId());
+                System.out.println(item.getProductName() + " has been removed from your cart.");
                 return;
             }
 
-            if (item.getProduct().getStock() < newQuantity) {
+            setQuantity(item, newQuantity);
+            if (item.getProduct() != null && item.getProduct().getStock() < newQuantity) {
                 System.out.println("Sorry, we only have " + item.getProduct().getStock() + " of this item in stock.");
                 return;
             }
-
-            item.setQuantity(newQuantity);
-            recalculateTotal();
             System.out.println("Quantity updated successfully.");
         } else {
             System.out.println("Invalid item index.");
@@ -166,7 +172,25 @@ public class Cart {
 
     public void clearCart() {
         items.clear();
+        itemList = null;
         totalAmount = 0.0;
         System.out.println("Your cart has been emptied.");
     }
+
+    // Adjusts the total by the change in the item's subtotal
+    private void setQuantity(CartItem item, int quantity) {
+        double previousSubtotal = item.getSubtotal();
+        item.setQuantity(quantity);
+        totalAmount += item.getSubtotal() - previousSubtotal;
+    }
+
+    private CartItem remove(String productId) {
+        CartItem removed = items.remove(productId);
+        if (removed != null) {
+            itemList = null;
+            // Reset rather than subtract the last item, so rounding errors do not build up
+            totalAmount = items.isEmpty() ? 0.0 : totalAmount - removed.getSubtotal();
+        }
+        return removed;
+    }
 }
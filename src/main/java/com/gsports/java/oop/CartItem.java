@@ -1,16 +1,26 @@
 package com.gsports.java.oop;
 
-public class CartItem {
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public final class CartItem {
+    // Only read from older files that embedded the whole product; never written
+    @JsonProperty(value = "product", access = JsonProperty.Access.WRITE_ONLY)
     private Product product;
+
+    // Stored snapshot of the product at the time it was added
+    private String productId;
+    private String productName;
+    private String productType;
+    private double price;
+
     private int quantity;
     private double subtotal;
 
     public CartItem() {}
 
     public CartItem(Product product, int quantity) {
-        this.product = product;
         this.quantity = quantity;
-        setSubtotal();
+        setProduct(product);
     }
 
     public Product getProduct() {
@@ -19,6 +29,51 @@ public class CartItem {
 
     public void setProduct(Product product) {
         this.product = product;
+        this.productId = product.getProdID();
+        this.productName = product.getProdName();
+        this.productType = product.getProductType();
+        this.price = product.getSellingPrice();
+        setSubtotal();
+    }
+
+    /**
+     * Links this item to the live product without changing the stored name and price snapshot
+     * @param product The current catalog product with the same ID
+     */
+    public void attachProduct(Product product) {
+        this.product = product;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public void setProductId(String productId) {
+        this.productId = productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public void setProductName(String productName) {
+        this.productName = productName;
+    }
+
+    public String getProductType() {
+        return productType;
+    }
+
+    public void setProductType(String productType) {
+        this.productType = productType;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public void setPrice(double price) {
+        this.price = price;
         setSubtotal();
     }
 
@@ -36,13 +91,13 @@ public class CartItem {
     }
 
     public void setSubtotal() {
-        this.subtotal = product.getSellingPrice() * quantity;
+        this.subtotal = price * quantity;
     }
 
-    
+
 
     @Override
     public String toString() {
-        return quantity + " x " + product.getProdName() + " - $" + String.format("%.2f", subtotal);
+        return quantity + " x " + productName + " - $" + String.format("%.2f", subtotal);
     }
 }
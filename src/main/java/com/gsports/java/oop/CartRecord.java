@@ -0,0 +1,33 @@
+package com.gsports.java.oop;
+
+/**
+ * A customer's cart and wishlist, stored under the customer ID apart from the profile.
+ * Changing a cart writes this one small record instead of the whole customer.
+ */
+public class CartRecord {
+    private Cart cart;
+    private Wishlist wishlist;
+
+    public CartRecord() {}
+
+    public CartRecord(Cart cart, Wishlist wishlist) {
+        this.cart = cart;
+        this.wishlist = wishlist;
+    }
+
+    public Cart getCart() {
+        return cart;
+    }
+
+    public void setCart(Cart cart) {
+        this.cart = cart;
+    }
+
+    public Wishlist getWishlist() {
+        return wishlist;
+    }
+
+    public void setWishlist(Wishlist wishlist) {
+        this.wishlist = wishlist;
+    }
+}
@@ -1,26 +1,29 @@
 package com.gsports.java.oop;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.regex.Pattern;
-import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 public class Customer extends User {
     private String address;
     private String phoneNum;
 
+    // Stored in the cart store under the customer ID, not with the profile
+    @JsonIgnore
     private Cart cart;
+    @JsonIgnore
     private Wishlist wishlist;
 
-    @JsonBackReference("customer-orders")
-    private List<Order> orderHistory;
+    // Stored as order IDs only; the orders are resolved from the order store when first read
+    @JsonIgnore
+    private OrderHistory orderHistory = new OrderHistory();
 
     public Customer() {
         super();
         this.cart = new Cart();
         this.wishlist = new Wishlist();
-        this.orderHistory = new ArrayList<>();
     }
 
     public Customer(boolean deserializing) {
@@ -28,7 +31,6 @@ public class Customer extends User {
         if (!deserializing) {
             this.cart = new Cart();
             this.wishlist = new Wishlist();
-            this.orderHistory = new ArrayList<>();
         }
     }
 
@@ -38,7 +40,6 @@ public class Customer extends User {
         this.phoneNum = phoneNum;
         this.cart = new Cart();
         this.wishlist = new Wishlist();
-        this.orderHistory = new ArrayList<>();
         this.setUserID(generateCustomerId());
     }
     
@@ -87,15 +88,23 @@ public class Customer extends User {
         return orderHistory;
     }
 
-    public void setOrderHistory(List<Order> orderHistory) {
-        this.orderHistory = orderHistory;
+    @JsonProperty("orderIds")
+    public List<String> getOrderIds() {
+        return orderHistory.getOrderIds();
+    }
+
+    @JsonProperty("orderIds")
+    public void setOrderIds(List<String> orderIds) {
+        this.orderHistory = new OrderHistory(orderIds);
     }
 
     public void addOrder(Order order) {
-        if (this.orderHistory == null) {
-            this.orderHistory = new ArrayList<>();
-        } 
-        this.orderHistory.add(order);
+        orderHistory.add(order);
+    }
+
+    // Links a stored order to this customer without resolving the history
+    public void addOrderId(String orderId) {
+        orderHistory.addOrderId(orderId);
     }
 
     @Override
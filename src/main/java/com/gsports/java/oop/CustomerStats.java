@@ -0,0 +1,32 @@
+package com.gsports.java.oop;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running order totals for one customer, kept by OrderIndex as orders are placed and cancelled.
+ * @param orderCount Orders placed, including cancelled ones
+ * @param lifetimeSpend Total amount (before tax) of the orders that were not cancelled
+ * @param lastOrderDate Date of the latest order, or null if there are none
+ */
+public record CustomerStats(int orderCount, double lifetimeSpend, LocalDateTime lastOrderDate) {
+    public static final CustomerStats NONE = new CustomerStats(0, 0.0, null);
+
+    CustomerStats withOrder(Order order) {
+        LocalDateTime date = order.getOrderDate();
+        LocalDateTime latest = lastOrderDate == null || (date != null && date.isAfter(lastOrderDate)) ? date : lastOrderDate;
+        return new CustomerStats(orderCount + 1, lifetimeSpend + spendOf(order), latest);
+    }
+
+    // The latest date is passed in, since it cannot be worked out from the totals alone
+    CustomerStats withoutOrder(Order order, LocalDateTime latest) {
+        return new CustomerStats(orderCount - 1, orderCount == 1 ? 0.0 : lifetimeSpend - spendOf(order), latest);
+    }
+
+    CustomerStats withSpend(double change) {
+        return new CustomerStats(orderCount, lifetimeSpend + change, lastOrderDate);
+    }
+
+    static double spendOf(Order order) {
+        return order.getStatus() == Order.OrderStatus.CANCELLED ? 0.0 : order.getTotalAmount();
+    }
+}
@@ -0,0 +1,285 @@
+package com.gsports.java.oop;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Benchmarks for the data layer. Not part of the application menus.
+ * Run with:
+ *   mvn compile exec:java -Dexec.mainClass=com.gsports.java.oop.DataBenchmark -Dexec.args="products 100000"
+ * Benchmarks: products (product deserialization), codec (JSON vs Smile storage),
+ *   lookup (single orders from a full load vs the memory-mapped record store),
+ *   search (product name search by scanning vs the trigram index)
+ */
+public class DataBenchmark {
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        String benchmark = args.length > 0 ? args[0] : "products";
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        switch (benchmark) {
+            case "products" -> benchmarkProductLoading(size);
+            case "codec" -> benchmarkStorageCodecs(size);
+            case "lookup" -> benchmarkOrderLookups(size);
+            case "search" -> benchmarkProductSearch(size);
+            default -> System.out.println("Unknown benchmark: " + benchmark + " (expected: products, codec, lookup, search)");
+        }
+    }
+
+    /**
+     * Compares the old tree-based product loader (readTree, sniff the type, wrap, treeToValue)
+     * with the single-pass streaming ProductDeserializer on a generated catalog.
+     */
+    private static void benchmarkProductLoading(int size) throws Exception {
+        File file = File.createTempFile("products-benchmark", ".json");
+        file.deleteOnExit();
+        ObjectMapper plainMapper = createPlainMapper();
+        plainMapper.writeValue(file, generateCatalog(size));
+
+        System.out.println("Product catalog: " + size + " products, " + (file.length() / 1024) + " KB");
+        double treeMs = measure("Tree + treeToValue", () -> loadProductsWithTree(plainMapper, file).size());
+        double streamMs = measure("Streaming deserializer", () -> JsonDataHandler.readProducts(file).size());
+        System.out.printf("Speed-up: %.2fx%n", treeMs / streamMs);
+    }
+
+    /**
+     * Saves and loads the same products and orders as pretty JSON, compact JSON and Smile,
+     * reporting time and file size for each.
+     */
+    private static void benchmarkStorageCodecs(int size) throws Exception {
+        Map<String, Product> products = generateCatalog(size);
+        Map<String, Order> orders = generateOrders(size, products);
+        System.out.println("Storage formats: " + size + " products and " + size + " orders");
+
+        benchmarkCodec("json-pretty", StorageCodec.JSON, true, products, orders);
+        benchmarkCodec("json-compact", StorageCodec.JSON, false, products, orders);
+        benchmarkCodec("smile", StorageCodec.SMILE, false, products, orders);
+    }
+
+    private static void benchmarkCodec(String label, StorageCodec codec, boolean pretty,
+                                       Map<String, Product> products, Map<String, Order> orders) throws Exception {
+        ObjectMapper mapper = JsonDataHandler.createObjectMapper(codec.createFactory());
+        ObjectWriter writer = pretty ? mapper.writer().withDefaultPrettyPrinter() : mapper.writer();
+        ObjectReader productsReader = mapper.readerFor(mapper.getTypeFactory()
+                .constructMapType(HashMap.class, String.class, Product.class));
+        ObjectReader ordersReader = mapper.readerFor(mapper.getTypeFactory()
+                .constructMapType(HashMap.class, String.class, Order.class));
+        File productsFile = File.createTempFile("products-benchmark", "." + codec.getExtension());
+        File ordersFile = File.createTempFile("orders-benchmark", "." + codec.getExtension());
+        productsFile.deleteOnExit();
+        ordersFile.deleteOnExit();
+
+        System.out.println();
+        measure(label + " save products", () -> {
+            writer.writeValue(productsFile, products);
+            return products.size();
+        });
+        measure(label + " load products", () -> productsReader.<Map<String, Product>>readValue(productsFile).size());
+        measure(label + " save orders", () -> {
+            writer.writeValue(ordersFile, orders);
+            return orders.size();
+        });
+        measure(label + " load orders", () -> ordersReader.<Map<String, Order>>readValue(ordersFile).size());
+        System.out.printf("%-28s %10d KB products, %d KB orders%n", label + " size",
+                productsFile.length() / 1024, ordersFile.length() / 1024);
+    }
+
+    /**
+     * Looks up 1000 orders by ID, once by reading the whole orders file and once
+     * through MappedRecordStore, which binds only the requested records.
+     */
+    private static void benchmarkOrderLookups(int size) throws Exception {
+        Map<String, Order> orders = generateOrders(size, generateCatalog(1000));
+        List<String> orderIds = new ArrayList<>(orders.keySet());
+        List<String> wanted = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            wanted.add(orderIds.get((int) ((i * 7919L) % orderIds.size())));
+        }
+
+        ObjectMapper mapper = JsonDataHandler.createObjectMapper(StorageCodec.JSON.createFactory());
+        ObjectReader ordersReader = mapper.readerFor(mapper.getTypeFactory()
+                .constructMapType(HashMap.class, String.class, Order.class));
+        File ordersFile = File.createTempFile("orders-benchmark", ".json");
+        ordersFile.deleteOnExit();
+        mapper.writeValue(ordersFile, orders);
+
+        File directory = Files.createTempDirectory("records-benchmark").toFile();
+        MappedRecordStore<Order> store = new MappedRecordStore<>(directory.getPath(), "orders",
+                mapper.readerFor(Order.class), mapper.writer());
+        long start = System.nanoTime();
+        store.rewrite(orders);
+        System.out.printf("Order lookups: %d orders, store written in %d ms%n",
+                size, (System.nanoTime() - start) / 1_000_000);
+        // Deleted in reverse order of registration, so the directory goes last
+        directory.deleteOnExit();
+        for (File segment : directory.listFiles()) {
+            segment.deleteOnExit();
+        }
+
+        double fullMs = measure("Full load + get", () -> {
+            Map<String, Order> loaded = ordersReader.readValue(ordersFile);
+            int found = 0;
+            for (String orderId : wanted) {
+                found += loaded.get(orderId) != null ? 1 : 0;
+            }
+            return found;
+        });
+        double mappedMs = measure("Mapped store find", () -> {
+            int found = 0;
+            for (String orderId : wanted) {
+                found += store.find(orderId) != null ? 1 : 0;
+            }
+            return found;
+        });
+        // A fresh store only reads record headers to rebuild its index
+        measure("Mapped store open + find", () -> new MappedRecordStore<Order>(directory.getPath(), "orders",
+                mapper.readerFor(Order.class), mapper.writer()).find(wanted.get(0)) != null ? 1 : 0);
+        System.out.printf("Speed-up: %.2fx%n", fullMs / mappedMs);
+    }
+
+    /**
+     * Runs the same name searches over a generated catalog, once by lowercasing and scanning
+     * every product name (the old searchProductByName) and once through ProductSearchIndex.
+     */
+    private static void benchmarkProductSearch(int size) throws Exception {
+        List<Product> catalog = new ArrayList<>(generateCatalog(size).values());
+        String[] queries = {"laptop model 12", "Mouse Model 9999", "accessory", "model 4242", "no such product"};
+
+        long start = System.nanoTime();
+        ProductSearchIndex index = new ProductSearchIndex(catalog);
+        System.out.printf("Product search: %d products, index built in %d ms%n",
+                size, (System.nanoTime() - start) / 1_000_000);
+
+        double scanMs = measure("Lowercase + contains scan", () -> {
+            int found = 0;
+            for (String query : queries) {
+                for (Product product : catalog) {
+                    if (product.getProdName().toLowerCase().contains(query.toLowerCase())) {
+                        found++;
+                    }
+                }
+            }
+            return found;
+        });
+        double indexMs = measure("Trigram index", () -> {
+            int found = 0;
+            for (String query : queries) {
+                found += index.searchByName(query).size();
+            }
+            return found;
+        });
+        System.out.printf("Speed-up: %.2fx%n", scanMs / indexMs);
+    }
+
+    static Map<String, Order> generateOrders(int size, Map<String, Product> products) {
+        Customer customer = new Customer("Benchmark User", "benchmark@example.com", "Benchmark1!",
+                "1 Jalan Benchmark, Kuala Lumpur", "0123456789");
+        List<Product> catalog = new ArrayList<>(products.values());
+        LocalDateTime firstOrder = LocalDateTime.now().minusMinutes(size);
+        Map<String, Order> orders = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            List<CartItem> items = new ArrayList<>();
+            items.add(new CartItem(catalog.get(i % catalog.size()), 1 + i % 3));
+            items.add(new CartItem(catalog.get((i * 7 + 3) % catalog.size()), 1));
+            double total = 0;
+            for (CartItem item : items) {
+                total += item.getSubtotal();
+            }
+            String orderId = "ORD-" + String.format("%08X", i);
+            Order order = new Order(orderId, customer, items, total, customer.getAddress(), null);
+            order.setOrderDate(firstOrder.plusMinutes(i));
+            orders.put(orderId, order);
+        }
+        return orders;
+    }
+
+    static Map<String, Product> generateCatalog(int size) {
+        Map<String, Product> products = new HashMap<>();
+        for (int i = 1; i <= size; i++) {
+            String id = "P" + String.format("%06d", i);
+            double price = 50 + (i % 500) * 10.0;
+            Product product;
+            switch (i % 3) {
+                case 0 -> product = new Laptop(id, "Laptop Model " + i, "Gaming laptop number " + i,
+                        price * 0.8, price, i % 40, "Intel i" + (5 + i % 3 * 2), "RTX 40" + (5 + i % 5) + "0",
+                        8 << (i % 3), 256 << (i % 4), "15.6 inch", "Windows 11");
+                case 1 -> product = new Mouse(id, "Mouse Model " + i, "Gaming mouse number " + i,
+                        price * 0.8, price, i % 40, 800 * (1 + i % 20), i % 2 == 0,
+                        3 + i % 8, i % 2 == 0 ? "Bluetooth" : "USB", "Black");
+                default -> product = new Accessory(id, "Accessory Model " + i, "Accessory number " + i,
+                        price * 0.8, price, i % 40, "All laptops", i % 2 == 0 ? "Charger" : "Cable",
+                        "Plastic", "White");
+            }
+            products.put(id, product);
+        }
+        return products;
+    }
+
+    // Same configuration as the data handler, without the custom deserializers
+    private static ObjectMapper createPlainMapper() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.registerModule(new JavaTimeModule());
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return mapper;
+    }
+
+    // The loader that JsonDataHandler used before ProductDeserializer
+    private static Map<String, Product> loadProductsWithTree(ObjectMapper mapper, File file) throws Exception {
+        Map<String, Product> products = new HashMap<>();
+        JsonNode rootNode = mapper.readTree(file);
+        Iterator<Map.Entry<String, JsonNode>> fields = rootNode.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            JsonNode node = entry.getValue();
+            String productType;
+            if (node.has("processor") && node.has("graphicsCard") && node.has("ramGB")) {
+                productType = "Laptop";
+            } else if (node.has("dpi") && node.has("numButtons")) {
+                productType = "Mouse";
+            } else {
+                productType = "Accessory";
+            }
+            ObjectNode wrapperNode = mapper.createObjectNode();
+            wrapperNode.set(productType, node);
+            products.put(entry.getKey(), mapper.treeToValue(wrapperNode, Product.class));
+        }
+        return products;
+    }
+
+    /**
+     * Runs the task a few times to warm up, then reports the average of the measured rounds.
+     * @return Average time in milliseconds
+     */
+    static double measure(String label, Callable<Integer> task) throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            task.call();
+        }
+        long total = 0;
+        int result = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            result = task.call();
+            total += System.nanoTime() - start;
+        }
+        double averageMs = total / (double) MEASURED_ROUNDS / 1_000_000;
+        System.out.printf("%-28s %10.1f ms  (%d records)%n", label, averageMs, result);
+        return averageMs;
+    }
+}
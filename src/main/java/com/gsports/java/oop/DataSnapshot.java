@@ -0,0 +1,77 @@
+package com.gsports.java.oop;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Everything loaded at startup, published only once every store has finished
+ * loading and the stores have been linked to each other.
+ * The lists are the working copies the menus keep changing after startup.
+ */
+public final class DataSnapshot {
+    private final List<User> customers;
+    private final List<Admin> admins;
+    private final List<Order> orders;
+    private final List<Payment> payments;
+    private final Map<String, Product> products;
+    private final Map<String, Long> loadTimesMs;
+    private final long totalLoadTimeMs;
+
+    DataSnapshot(List<User> customers, List<Admin> admins, List<Order> orders, List<Payment> payments,
+                 Map<String, Product> products, Map<String, Long> loadTimesMs, long totalLoadTimeMs) {
+        this.customers = customers;
+        this.admins = admins;
+        this.orders = orders;
+        this.payments = payments;
+        this.products = products;
+        this.loadTimesMs = Collections.unmodifiableMap(new LinkedHashMap<>(loadTimesMs));
+        this.totalLoadTimeMs = totalLoadTimeMs;
+    }
+
+    public List<User> getCustomers() {
+        return customers;
+    }
+
+    public List<Admin> getAdmins() {
+        return admins;
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public List<Payment> getPayments() {
+        return payments;
+    }
+
+    public Map<String, Product> getProducts() {
+        return products;
+    }
+
+    /**
+     * @return How long each store took to load, in milliseconds, keyed by store name
+     */
+    public Map<String, Long> getLoadTimesMs() {
+        return loadTimesMs;
+    }
+
+    /**
+     * @return Wall-clock time for the whole startup load. With stores loading in parallel
+     *         this is close to the slowest store rather than the sum of all of them.
+     */
+    public long getTotalLoadTimeMs() {
+        return totalLoadTimeMs;
+    }
+
+    public String describeLoadTimes() {
+        StringBuilder description = new StringBuilder("Loaded data in " + totalLoadTimeMs + " ms (");
+        String separator = "";
+        for (Map.Entry<String, Long> entry : loadTimesMs.entrySet()) {
+            description.append(separator).append(entry.getKey()).append(' ').append(entry.getValue()).append(" ms");
+            separator = ", ";
+        }
+        return description.append(')').toString();
+    }
+}
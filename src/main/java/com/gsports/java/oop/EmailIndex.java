@@ -0,0 +1,81 @@
+package com.gsports.java.oop;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Finds customers and admins by email in constant time, for login and duplicate checks at registration.
+ * Emails are compared case-insensitively and without surrounding spaces.
+ * Used from the menu thread only.
+ */
+public final class EmailIndex {
+    private final Map<String, User> usersByEmail = new HashMap<>();
+    // The key each user is indexed under, so a changed email can be moved
+    private final Map<String, String> keysByUserId = new HashMap<>();
+
+    /**
+     * Indexes customers before admins; if two accounts share an email, the first one is kept.
+     */
+    public EmailIndex(Collection<? extends User> customers, Collection<? extends User> admins) {
+        for (User user : customers) {
+            add(user);
+        }
+        for (User user : admins) {
+            add(user);
+        }
+    }
+
+    /**
+     * @return The user registered with this email, or null if there is none
+     */
+    public User find(String email) {
+        return email == null ? null : usersByEmail.get(normalize(email));
+    }
+
+    public boolean contains(String email) {
+        return find(email) != null;
+    }
+
+    /**
+     * @return false if another user already has this email, in which case nothing is indexed
+     */
+    public boolean add(User user) {
+        if (user.getEmail() == null) {
+            return false;
+        }
+        String key = normalize(user.getEmail());
+        if (usersByEmail.putIfAbsent(key, user) != null) {
+            return false;
+        }
+        keysByUserId.put(user.getUserID(), key);
+        return true;
+    }
+
+    /**
+     * Re-indexes a user after a profile edit. Does nothing if the email has not changed.
+     * @return false if the new email belongs to another user; the user then stays under the old one
+     */
+    public boolean update(User user) {
+        String oldKey = keysByUserId.get(user.getUserID());
+        String newKey = user.getEmail() == null ? null : normalize(user.getEmail());
+        if (newKey == null || newKey.equals(oldKey)) {
+            return true;
+        }
+        User owner = usersByEmail.get(newKey);
+        if (owner != null && owner != user) {
+            return false;
+        }
+        if (oldKey != null) {
+            usersByEmail.remove(oldKey);
+        }
+        usersByEmail.put(newKey, user);
+        keysByUserId.put(user.getUserID(), newKey);
+        return true;
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
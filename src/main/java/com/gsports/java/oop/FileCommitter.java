@@ -0,0 +1,186 @@
+package com.gsports.java.oop;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * Replaces a data file in one step so a crash never leaves it half written.
+ * The new content goes to a temp file in the same directory, which is then
+ * renamed over the target. Whether the data is also forced to disk first
+ * depends on the file's durability policy.
+ */
+public class FileCommitter {
+    public enum Durability {
+        // fsync every commit before the rename
+        ALWAYS,
+        // fsync at most once per sync interval; a power loss can lose the latest commits but never tears a file
+        PERIODIC,
+        // never fsync; the rename still protects against a crash of the program itself
+        NONE;
+
+        /**
+         * Reads a policy from a system property such as -Dgsports.durability.orders=ALWAYS
+         */
+        public static Durability fromProperty(String property, Durability defaultValue) {
+            String value = System.getProperty(property);
+            if (value == null || value.isBlank()) {
+                return defaultValue;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Unknown durability '" + value + "' for " + property + ", using " + defaultValue);
+                return defaultValue;
+            }
+        }
+    }
+
+    /**
+     * Writes the new file content. Must leave the stream open; the committer forces and closes it.
+     */
+    @FunctionalInterface
+    public interface Content {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static final long SYNC_INTERVAL_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("gsports.syncIntervalMs", 1000));
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path target;
+    private final Durability durability;
+    private long lastSyncNanos;
+
+    public FileCommitter(String filePath, Durability durability) {
+        this.target = new File(filePath).getAbsoluteFile().toPath();
+        this.durability = durability;
+        this.lastSyncNanos = System.nanoTime() - SYNC_INTERVAL_NANOS;
+    }
+
+    public File getFile() {
+        return target.toFile();
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Serializes the value into a temp file and renames it over the target.
+     * If anything fails the target is left untouched and the temp file is removed.
+     */
+    public void write(ObjectWriter writer, Object value) throws IOException {
+        // Keep the stream open after writing so it can be forced before closing
+        ObjectWriter nonClosingWriter = writer.without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        write(out -> nonClosingWriter.writeValue(out, value));
+    }
+
+    /**
+     * Writes the content into a temp file and renames it over the target.
+     * If anything fails the target is left untouched and the temp file is removed.
+     */
+    public synchronized void write(Content content) throws IOException {
+        Path directory = target.getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        boolean sync = syncDue();
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp.toFile())) {
+                content.writeTo(out);
+                if (sync) {
+                    out.getChannel().force(true);
+                }
+            }
+            moveIntoPlace(temp);
+            if (sync) {
+                syncDirectory(directory);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Atomically replaces the target with an empty file.
+     */
+    public synchronized void clear() throws IOException {
+        Path directory = target.getParent();
+        Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        try {
+            moveIntoPlace(temp);
+            if (syncDue()) {
+                syncDirectory(directory);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Decides whether the next write should be forced to disk under this file's policy.
+     * Used by commit paths here and by appenders that manage their own stream.
+     */
+    synchronized boolean syncDue() {
+        switch (durability) {
+            case ALWAYS:
+                return true;
+            case PERIODIC:
+                long now = System.nanoTime();
+                if (now - lastSyncNanos >= SYNC_INTERVAL_NANOS) {
+                    lastSyncNanos = now;
+                    return true;
+                }
+                return false;
+            default:
+                return false;
+        }
+    }
+
+    private void moveIntoPlace(Path temp) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Makes the rename itself durable. Not every platform can open a directory, so failures are ignored.
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Best effort only
+        }
+    }
+
+    /**
+     * Keeps a copy of a damaged data file next to it (e.g. orders.json.corrupt-20250101-120000)
+     * before the good records read from it are written back.
+     * @return The copy, or null if it could not be made
+     */
+    public static File preserveCorrupt(File file) {
+        Path copy = file.toPath().resolveSibling(file.getName() + ".corrupt-" + LocalDateTime.now().format(SUFFIX_FORMAT));
+        try {
+            Files.copy(file.toPath(), copy, StandardCopyOption.REPLACE_EXISTING);
+            return copy.toFile();
+        } catch (IOException e) {
+            System.out.println("Error keeping a copy of " + file.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
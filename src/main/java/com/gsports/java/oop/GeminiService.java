@@ -12,14 +12,16 @@ import com.google.genai.types.GenerateContentResponse;
 public class GeminiService {
     private ProductListing productListing;
     private static GeminiService instance;
+    // The menus' listing, kept current by admin product changes
+    private static ProductListing sharedListing;
     private Client client;
     private final int maxRetries = 3;
     private final String model = "gemini-2.0-flash-001";
 
     private GeminiService() {
         try {
-            List<Product> products = JsonDataHandler.getProductsList();
-            this.productListing = new ProductListing(products);
+            // Share the menus' listing; otherwise reuse the catalog loaded at startup instead of parsing products.json again
+            this.productListing = sharedListing != null ? sharedListing : new ProductListing(StartupLoader.getProducts());
             Properties props = new Properties();
             InputStream input = getClass().getClassLoader().getResourceAsStream("config.properties");
             
@@ -40,6 +42,13 @@ public class GeminiService {
         }
     }
 
+    public static synchronized void setProductListing(ProductListing productListing) {
+        sharedListing = productListing;
+        if (instance != null) {
+            instance.productListing = productListing;
+        }
+    }
+
     public static synchronized GeminiService getInstance() {
         if (instance == null) {
             instance = new GeminiService();
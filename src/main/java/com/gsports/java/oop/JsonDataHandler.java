@@ -5,27 +5,128 @@ import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.Map;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale.Category;
 import java.util.ArrayList;
-import java.util.stream.Collectors;
+import java.util.Collection;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.gsports.java.oop.FileCommitter.Durability;
 
 
 public class JsonDataHandler {
-    private static final String CUSTOMER_FILE_PATH = "customers.json";
-    private static final String ADMIN_FILE_PATH = "admins.json";
-    private static final String PRODUCT_FILE_PATH = "products.json";
+    // On-disk format for every data file; the journals are always JSON lines
+    private static final StorageCodec storageCodec = StorageCodec.fromProperty("gsports.storageFormat", StorageCodec.JSON);
+    private static final String CUSTOMER_STORE = "customers";
+    private static final String ADMIN_STORE = "admins";
+    private static final String PRODUCT_STORE = "products";
+    private static final String PAYMENT_STORE = "payments";
+    private static final String CART_STORE = "carts";
+    private static final String ORDER_SEGMENT_DIRECTORY = "orders";
+    private static final String ORDER_MANIFEST_STORE = ORDER_SEGMENT_DIRECTORY + "/manifest";
+    private static final String CUSTOMER_FILE_PATH = storageCodec.fileName(CUSTOMER_STORE);
+    private static final String ADMIN_FILE_PATH = storageCodec.fileName(ADMIN_STORE);
+    private static final String PRODUCT_FILE_PATH = storageCodec.fileName(PRODUCT_STORE);
+    private static final String PAYMENTS_FILE_PATH = storageCodec.fileName(PAYMENT_STORE);
+    private static final String CART_FILE_PATH = storageCodec.fileName(CART_STORE);
+    private static final String ORDER_MANIFEST_FILE_PATH = storageCodec.fileName(ORDER_MANIFEST_STORE);
+    // Single-file order storage used before monthly segments; migrated on first load
     private static final String ORDER_FILE_PATH = "orders.json";
-    private static final String PAYMENTS_FILE_PATH = "payments.json";
-    private static final ObjectMapper mapper = createObjectMapper();
+    private static final String ORDER_JOURNAL_FILE_PATH = "orders.journal";
+    private static final String CUSTOMER_JOURNAL_FILE_PATH = "customers.journal";
+    private static final String PAYMENT_JOURNAL_FILE_PATH = "payments.journal";
+    private static final String PRODUCT_JOURNAL_FILE_PATH = "products.journal";
+    private static final String CART_JOURNAL_FILE_PATH = "carts.journal";
+    // Memory-mapped copies of orders and payments for single-record lookups
+    private static final String RECORD_STORE_DIRECTORY = "records";
+    private static final ObjectMapper mapper = createObjectMapper(storageCodec.createFactory());
+    // Checksums and the journal always use JSON, so they stay valid when the storage format changes
+    private static final ObjectMapper jsonMapper = storageCodec == StorageCodec.JSON
+            ? mapper : createObjectMapper(new JsonFactory());
+    // Compact output drops indentation for production; pretty output stays the default for readable files
+    private static volatile boolean compactOutput = Boolean.getBoolean("gsports.compactJson");
+    // Customers and products are written by runtime type: a typed Map<String, User> writer would
+    // only write the User fields, and a Map<String, Product> writer would add the {"Laptop": {...}}
+    // type wrapper to every entry and change the products.json layout
+    private static final StoreIO customerIO = new StoreIO(mapper.readerFor(mapper.getTypeFactory()
+            .constructMapType(HashMap.class, String.class, User.class)), mapper.writer(), Customer.class);
+    private static final StoreIO adminIO = new StoreIO(mapper.getTypeFactory()
+            .constructMapType(HashMap.class, String.class, Admin.class), Admin.class);
+    // Orders and payments are written as sealed record trees (see RecordChecksum), so their writers are untyped
+    private static final StoreIO orderIO = new StoreIO(mapper.readerFor(mapper.getTypeFactory()
+            .constructMapType(HashMap.class, String.class, Order.class)), mapper.writer(), Order.class);
+    private static final StoreIO paymentIO = new StoreIO(mapper.readerFor(mapper.getTypeFactory()
+            .constructMapType(HashMap.class, String.class, Payment.class)), mapper.writer(), Payment.class);
+    private static final StoreIO productIO = new StoreIO(mapper.reader(), mapper.writer(),
+            Product.class, Laptop.class, Mouse.class, Accessory.class);
+    private static final StoreIO cartIO = new StoreIO(mapper.getTypeFactory()
+            .constructMapType(HashMap.class, String.class, CartRecord.class), CartRecord.class);
+    private static final ObjectReader orderReader = mapper.readerFor(Order.class);
+    private static final ObjectReader paymentReader = mapper.readerFor(Payment.class);
+    private static final ObjectReader productReader = mapper.readerFor(Product.class);
+    private static final RecordChecksum recordChecksum = new RecordChecksum(jsonMapper);
+    // Every data file is replaced atomically. Orders and payments are forced to disk on each commit by default;
+    // override per store with e.g. -Dgsports.durability.customers=ALWAYS (ALWAYS, PERIODIC or NONE)
+    private static final FileCommitter customerFile = new FileCommitter(CUSTOMER_FILE_PATH,
+            Durability.fromProperty("gsports.durability.customers", Durability.PERIODIC));
+    private static final FileCommitter adminFile = new FileCommitter(ADMIN_FILE_PATH,
+            Durability.fromProperty("gsports.durability.admins", Durability.PERIODIC));
+    private static final FileCommitter productFile = new FileCommitter(PRODUCT_FILE_PATH,
+            Durability.fromProperty("gsports.durability.products", Durability.PERIODIC));
+    private static final Durability orderDurability =
+            Durability.fromProperty("gsports.durability.orders", Durability.ALWAYS);
+    private static final FileCommitter orderManifestFile = new FileCommitter(ORDER_MANIFEST_FILE_PATH, orderDurability);
+    private static final Map<YearMonth, FileCommitter> orderSegmentFiles = new ConcurrentHashMap<>();
+    private static final FileCommitter paymentFile = new FileCommitter(PAYMENTS_FILE_PATH,
+            Durability.fromProperty("gsports.durability.payments", Durability.ALWAYS));
+    private static final FileCommitter cartFile = new FileCommitter(CART_FILE_PATH,
+            Durability.fromProperty("gsports.durability.carts", Durability.PERIODIC));
+    private static final RecordJournal<Order> orderJournal = new RecordJournal<>(ORDER_JOURNAL_FILE_PATH,
+            Order.class, jsonMapper, orderDurability);
+    // Single-record changes to the other stores; folded into their snapshots by a LogCompactor
+    private static final RecordJournal<User> customerJournal = new RecordJournal<>(CUSTOMER_JOURNAL_FILE_PATH,
+            User.class, jsonMapper, customerFile.getDurability());
+    private static final RecordJournal<Payment> paymentJournal = new RecordJournal<>(PAYMENT_JOURNAL_FILE_PATH,
+            Payment.class, jsonMapper, paymentFile.getDurability());
+    private static final RecordJournal<Product> productJournal = new RecordJournal<>(PRODUCT_JOURNAL_FILE_PATH,
+            Product.class, jsonMapper, productFile.getDurability());
+    // Carts and wishlists by customer ID, kept apart from the customer profiles
+    private static final RecordJournal<CartRecord> cartJournal = new RecordJournal<>(CART_JOURNAL_FILE_PATH,
+            CartRecord.class, jsonMapper, cartFile.getDurability());
+    // Orders by order ID and payments by the ID of their order; named by format since the records are stored encoded
+    private static final MappedRecordStore<Order> orderRecords = new MappedRecordStore<>(RECORD_STORE_DIRECTORY,
+            "orders-" + storageCodec.getExtension(), orderReader, mapper.writer());
+    private static final MappedRecordStore<Payment> paymentRecords = new MappedRecordStore<>(RECORD_STORE_DIRECTORY,
+            "payments-by-order-" + storageCodec.getExtension(), paymentReader, mapper.writer());
     
-    private static ObjectMapper createObjectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
+    /**
+     * Builds a mapper with the data file configuration for the given format.
+     * @param factory JsonFactory for text files, or a binary factory such as SmileFactory
+     */
+    static ObjectMapper createObjectMapper(JsonFactory factory) {
+        ObjectMapper mapper = new ObjectMapper(factory);
         // Register the JavaTimeModule to handle Java 8 date/time types
         mapper.registerModule(new JavaTimeModule());
         // Configure to write dates as ISO-8601 strings
@@ -40,16 +141,72 @@ public class JsonDataHandler {
 
         SimpleModule module = new SimpleModule();
         module.addDeserializer(User.class, new UserDeserializer());
+        module.addDeserializer(Product.class, new ProductDeserializer());
         mapper.registerModule(module);
 
         return mapper;
     }
 
+    /**
+     * Immutable reader and writers for one data file, built once per process.
+     * Reusing them keeps Jackson's serializer and deserializer caches warm,
+     * unlike mapper.copy() which starts each call with empty caches.
+     * The caches are filled when the holder is built, so the first load or save does not pay for it.
+     */
+    private static final class StoreIO {
+        private final ObjectReader reader;
+        private final ObjectWriter prettyWriter;
+        private final ObjectWriter compactWriter;
+
+        private StoreIO(JavaType type, Class<?>... recordTypes) {
+            this(mapper.readerFor(type), mapper.writerFor(type), recordTypes);
+        }
+
+        /**
+         * @param recordTypes The concrete record classes in the file. Untyped readers and writers
+         *                    only look up their (de)serializers on first use, so they are looked up here
+         */
+        private StoreIO(ObjectReader reader, ObjectWriter writer, Class<?>... recordTypes) {
+            this.reader = reader;
+            this.compactWriter = writer.without(SerializationFeature.INDENT_OUTPUT);
+            this.prettyWriter = compactWriter.withDefaultPrettyPrinter();
+            for (Class<?> recordType : recordTypes) {
+                // Typed readers and writers resolve their root (de)serializer eagerly; the mapper caches both
+                mapper.readerFor(recordType);
+                mapper.writerFor(recordType);
+            }
+        }
+
+        private ObjectReader reader() {
+            return reader;
+        }
+
+        private ObjectWriter writer() {
+            return compactOutput ? compactWriter : prettyWriter;
+        }
+    }
+
+    public static StorageCodec getStorageCodec() {
+        return storageCodec;
+    }
+
+    public static boolean isCompactOutput() {
+        return compactOutput;
+    }
+
+    /**
+     * Switches between compact (non-indented) and pretty-printed output for all data files.
+     * Can also be enabled at startup with -Dgsports.compactJson=true
+     * @param compact true to write without indentation
+     */
+    public static void setCompactOutput(boolean compact) {
+        compactOutput = compact;
+    }
+
     public static void saveCustomers(Map<String,User> customers) {
         try {
             if (customers != null && !customers.isEmpty()) {
-                mapper.enable(SerializationFeature.INDENT_OUTPUT);
-                mapper.writeValue(new File(CUSTOMER_FILE_PATH), customers);
+                customerJournal.writeSnapshot(customers, JsonDataHandler::writeCustomersSnapshot);
                 }
                 else {
                    System.out.println("Customer data is empty");
@@ -59,32 +216,60 @@ public class JsonDataHandler {
         }
     }
 
+    private static void writeCustomersSnapshot(Map<String, User> customers) throws IOException {
+        customerFile.write(customerIO.writer(), customers);
+    }
+
+    /**
+     * Persists a single new or changed customer by appending it to the customer journal.
+     */
+    public static void saveCustomer(User customer) {
+        try {
+            appendCustomer(customer);
+        } catch (IOException e) {
+            System.out.println("Error saving customer data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Same as saveCustomer, but a failed append is passed to the caller, e.g. so it can be retried.
+     */
+    public static void appendCustomer(User customer) throws IOException {
+        customerJournal.appendPut(customer.getUserID(), customer);
+    }
+
     // Update the loadCustomers method to use the configured mapper
     public static Map<String, User> loadCustomers() {
+        Map<String, User> customers;
         try {
-            File file = new File(CUSTOMER_FILE_PATH);
-            if (file.exists()) {
-                ObjectMapper readerMapper = mapper.copy();
-                
-                return readerMapper.readValue(file,
-                        readerMapper.getTypeFactory().constructMapType(HashMap.class, String.class, User.class));
-            } else {
-                System.out.println("No existing customer data found. Starting with an empty dataset.");
-                return new HashMap<>();
-            }
+            customers = readCustomersSnapshot();
         } catch (IOException e) {
             System.out.println("Error loading customer data: " + e.getMessage());
+            // The next save would replace the unreadable file, so keep it for recovery
+            FileCommitter.preserveCorrupt(customerFile.getFile());
+            customers = new HashMap<>();
+        }
+        try {
+            // Apply changes recorded since the last snapshot
+            customerJournal.replay(customers);
+        } catch (IOException e) {
+            System.out.println("Error loading customer data: " + e.getMessage());
+        }
+        return customers;
+    }
+
+    private static Map<String, User> readCustomersSnapshot() throws IOException {
+        File file = new File(CUSTOMER_FILE_PATH);
+        if (!file.exists()) {
+            System.out.println("No existing customer data found. Starting with an empty dataset.");
             return new HashMap<>();
         }
+        return customerIO.reader().readValue(file);
     }
 
     public static void saveAdmins(Map<String, Admin> admins) {
         try {
-            // Use the configured mapper instead of creating a new one
-            ObjectMapper adminMapper = mapper.copy();
-            File file = new File(ADMIN_FILE_PATH);
-            adminMapper.enable(SerializationFeature.INDENT_OUTPUT);
-            adminMapper.writeValue(file, admins);
+            adminFile.write(adminIO.writer(), admins);
         } catch (IOException e) {
             System.out.println("Error saving admin data: " + e.getMessage());
         }
@@ -95,9 +280,7 @@ public class JsonDataHandler {
         try {
             File file = new File(ADMIN_FILE_PATH);
             if (file.exists()) {
-                ObjectMapper readerMapper = mapper.copy();
-                admins = readerMapper.readValue(file, 
-                        readerMapper.getTypeFactory().constructMapType(HashMap.class, String.class, Admin.class));
+                admins = adminIO.reader().readValue(file);
             } else {
                 Admin defaultAdmin = new Admin("A001", "admin", "admin@gmail.com", "admin123", "superadmin");
                 admins.put(defaultAdmin.getUserID(), defaultAdmin);
@@ -105,21 +288,14 @@ public class JsonDataHandler {
             }
         } catch (IOException e) {
             System.out.println("Error loading admin data: " + e.getMessage());
+            FileCommitter.preserveCorrupt(adminFile.getFile());
         }
         return admins;
     }
 
     public static void saveProducts(Map<String, Product> products) {
         try {
-            // Use the configured mapper instead of creating a new one
-            ObjectMapper productMapper = mapper.copy();
-            File file = new File(PRODUCT_FILE_PATH);
-            productMapper.enable(SerializationFeature.INDENT_OUTPUT);
-            
-            // Make sure we're using the type info from the Product class annotations
-            // No need to disable default typing as it's not enabled by default
-            
-            productMapper.writeValue(file, products);
+            productJournal.writeSnapshot(products, JsonDataHandler::writeProductsSnapshot);
             System.out.println("Product data saved successfully.");
         } catch (IOException e) {
             System.out.println("Error saving product data: " + e.getMessage());
@@ -127,47 +303,38 @@ public class JsonDataHandler {
         }
     }
 
+    private static void writeProductsSnapshot(Map<String, Product> products) throws IOException {
+        productFile.write(productIO.writer(), products);
+    }
+
+    /**
+     * Persists a single new or changed product by appending it to the product journal.
+     */
+    public static void saveProduct(Product product) {
+        try {
+            productJournal.appendPut(product.getProdID(), product);
+        } catch (IOException e) {
+            System.out.println("Error saving product data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records the removal of a product in the product journal.
+     */
+    public static void removeProduct(String productId) {
+        try {
+            productJournal.appendRemove(productId);
+        } catch (IOException e) {
+            System.out.println("Error saving product data: " + e.getMessage());
+        }
+    }
+
     public static Map<String, Product> loadProducts() {
         Map<String, Product> products = new HashMap<>();
         try {
-            File file = new File(PRODUCT_FILE_PATH);
-            if (file.exists()) {
-                try {
-                    // Use the configured mapper instead of creating a new one
-                    ObjectMapper readerMapper = mapper.copy();
-                    
-                    // Configure the mapper to be more lenient
-                    readerMapper.configure(com.fasterxml.jackson.databind.DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-                    
-                    // Read the JSON as a generic tree first
-                    com.fasterxml.jackson.databind.JsonNode rootNode = readerMapper.readTree(file);
-                    
-                    // Process each product entry
-                    Iterator<Map.Entry<String, com.fasterxml.jackson.databind.JsonNode>> fields = rootNode.fields();
-                    while (fields.hasNext()) {
-                        Map.Entry<String, com.fasterxml.jackson.databind.JsonNode> entry = fields.next();
-                        String productId = entry.getKey();
-                        com.fasterxml.jackson.databind.JsonNode productNode = entry.getValue();
-                        
-                        // Determine product type based on fields present
-                        String productType = determineProductType(productNode);
-                        
-                        // Create a wrapper object with the type as key
-                        com.fasterxml.jackson.databind.node.ObjectNode wrapperNode = readerMapper.createObjectNode();
-                        wrapperNode.set(productType, productNode);
-                        
-                        // Deserialize with the wrapper
-                        Product product = readerMapper.treeToValue(wrapperNode, Product.class);
-                        products.put(productId, product);
-                    }
-                    
-                } catch (Exception e) {
-                    System.out.println("Error parsing existing product data: " + e.getMessage());
-                    System.out.println("The file format appears to be incompatible. Creating new product data...");
-                    // Delete the corrupted file to start fresh
-                    file.delete();
-                }
-            }
+            products = readProductsSnapshot();
+            // Apply changes recorded since the last snapshot
+            productJournal.replay(products);
             
             // If products is still empty (file didn't exist or couldn't be parsed)
             if (products.isEmpty()) {
@@ -186,6 +353,29 @@ public class JsonDataHandler {
         }
     }
 
+    private static Map<String, Product> readProductsSnapshot() throws IOException {
+        File file = new File(PRODUCT_FILE_PATH);
+        return file.exists() ? readProducts(file) : new HashMap<>();
+    }
+
+    /**
+     * Reads a products file entry by entry. Each product is bound straight from the
+     * parser by ProductDeserializer, which picks Laptop, Mouse or Accessory in one pass.
+     */
+    static Map<String, Product> readProducts(File file) throws IOException {
+        Map<String, Product> products = new HashMap<>();
+        streamRecords(file, productReader, null, JsonDataHandler::validateProduct,
+                product -> products.put(product.getProdID(), product));
+        return products;
+    }
+
+    private static String validateProduct(String key, Product product) {
+        if (product.getProdID() == null || !product.getProdID().equals(key)) {
+            return "product ID does not match its key";
+        }
+        return null;
+    }
+
     // Helper method to create default products
     private static void createDefaultProducts(Map<String, Product> products) {
         
@@ -209,19 +399,6 @@ public class JsonDataHandler {
         System.out.println("Created default products with proper type information.");
     }
 
-    private static String determineProductType(com.fasterxml.jackson.databind.JsonNode node) {
-        if (node.has("processor") && node.has("graphicsCard") && node.has("ramGB")) {
-            return "Laptop";
-        } else if (node.has("dpi") && node.has("numButtons")) {
-            return "Mouse";
-        } else if (node.has("compatibleWith") && node.has("type") && node.has("material")) {
-            return "Accessory";
-        }
-        // Default to accessory if can't determine
-        return "Accessory";
-    }
-
-
     // Customer adapters
     public static List<User> getCustomersList() {
         return new ArrayList<>(loadCustomers().values());
@@ -235,6 +412,82 @@ public class JsonDataHandler {
         saveCustomers(customersMap);
     }
 
+    /**
+     * Persists one customer's cart and wishlist by appending them to the cart journal.
+     * The customer profile is not written.
+     */
+    public static void saveCart(Customer customer) {
+        try {
+            appendCart(customer.getUserID(), new CartRecord(customer.getCart(), customer.getWishlist()));
+        } catch (IOException e) {
+            System.out.println("Error saving cart data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Appends a customer's cart and wishlist to the cart journal; a failed append is passed to the caller.
+     */
+    public static void appendCart(String customerId, CartRecord cart) throws IOException {
+        cartJournal.appendPut(customerId, cart);
+    }
+
+    /**
+     * Copies a record through its stored JSON form, e.g. so it can be saved on another thread
+     * while the original keeps changing. Only what would be saved is copied.
+     * @param type The type the record is stored as, e.g. User for customers
+     */
+    public static <T> T copyRecord(T record, Class<T> type) {
+        return jsonMapper.convertValue(jsonMapper.valueToTree(record), type);
+    }
+
+    public static Map<String, CartRecord> loadCarts() {
+        Map<String, CartRecord> carts;
+        try {
+            carts = readCartsSnapshot();
+        } catch (IOException e) {
+            System.out.println("Error loading cart data: " + e.getMessage());
+            FileCommitter.preserveCorrupt(cartFile.getFile());
+            carts = new HashMap<>();
+        }
+        try {
+            // Apply changes recorded since the last snapshot
+            cartJournal.replay(carts);
+        } catch (IOException e) {
+            System.out.println("Error loading cart data: " + e.getMessage());
+        }
+        return carts;
+    }
+
+    private static Map<String, CartRecord> readCartsSnapshot() throws IOException {
+        File file = new File(CART_FILE_PATH);
+        return file.exists() ? cartIO.reader().readValue(file) : new HashMap<>();
+    }
+
+    private static void writeCartsSnapshot(Map<String, CartRecord> carts) throws IOException {
+        cartFile.write(cartIO.writer(), carts);
+    }
+
+    /**
+     * Gives each customer their stored cart and wishlist.
+     * Customers saved before the cart store existed keep the cart read from their profile,
+     * which is copied into the cart store so it survives the next profile save.
+     */
+    public static void attachCarts(Collection<User> customers, Map<String, CartRecord> carts) {
+        for (User user : customers) {
+            if (!(user instanceof Customer)) {
+                continue;
+            }
+            Customer customer = (Customer) user;
+            CartRecord record = carts.get(customer.getUserID());
+            if (record != null) {
+                customer.setCart(record.getCart() != null ? record.getCart() : new Cart());
+                customer.setWishlist(record.getWishlist() != null ? record.getWishlist() : new Wishlist());
+            } else if (!customer.getCart().isEmpty() || !customer.getWishlist().isEmpty()) {
+                saveCart(customer);
+            }
+        }
+    }
+
     // Admin adapters
     public static List<Admin> getAdminsList() {
         return new ArrayList<>(loadAdmins().values());
@@ -261,28 +514,194 @@ public class JsonDataHandler {
         saveProducts(productsMap);
     }
 
+    // Writes a full snapshot of all orders. The journal is folded into the snapshot and emptied.
     public static void saveOrders(Map<String, Order> orders) {
         try {
-            ObjectMapper orderMapper = mapper.copy();
-            File file = new File(ORDER_FILE_PATH);
-            orderMapper.enable(SerializationFeature.INDENT_OUTPUT);
-            orderMapper.writeValue(file, orders);
+            orderJournal.writeSnapshot(orders, JsonDataHandler::writeOrdersSnapshot);
         } catch (IOException e) {
             System.out.println("Error saving order data: " + e.getMessage());
+            return;
+        }
+        // Also drops the superseded records that single-order appends left in the mapped store
+        rewriteRecords(orderRecords, orders);
+    }
+
+    /**
+     * Writes one segment file per month of order date, then the manifest that lists them.
+     * Segments are committed before the manifest, and the journal is only emptied afterwards,
+     * so a crash part way through still recovers every order on the next load.
+     */
+    private static void writeOrdersSnapshot(Map<String, Order> orders) throws IOException {
+        Map<YearMonth, Map<String, Order>> ordersByMonth = new TreeMap<>();
+        for (Map.Entry<String, Order> entry : orders.entrySet()) {
+            ordersByMonth.computeIfAbsent(segmentMonth(entry.getValue()), month -> new LinkedHashMap<>())
+                    .put(entry.getKey(), entry.getValue());
+        }
+
+        // Without a manifest, any segment files on disk are the previous snapshot
+        OrderManifest previous = orderManifestFile.getFile().exists() ? readOrderManifest() : rebuildOrderManifest();
+        OrderManifest manifest = new OrderManifest();
+        for (Map.Entry<YearMonth, Map<String, Order>> entry : ordersByMonth.entrySet()) {
+            FileCommitter segmentFile = orderSegmentFile(entry.getKey());
+            segmentFile.write(orderIO.writer(), recordChecksum.sealAll(entry.getValue()));
+            manifest.addSegment(entry.getKey(), segmentFile.getFile().getName(), entry.getValue().size());
+        }
+        orderManifestFile.write(orderIO.writer(), manifest);
+
+        // Months that no longer have any orders
+        for (OrderManifest.Segment segment : previous.getSegments()) {
+            if (!ordersByMonth.containsKey(segment.getYearMonth())) {
+                Files.deleteIfExists(new File(ORDER_SEGMENT_DIRECTORY, segment.getFile()).toPath());
+            }
+        }
+    }
+
+    /**
+     * Folds journalled order changes into the segments of the months they touch; other months are
+     * neither read nor rewritten. An order's date is fixed when it is placed, so it never moves month.
+     */
+    private static void writeOrderChanges(Map<String, Order> changed, Set<String> removed) throws IOException {
+        if (!removed.isEmpty()) {
+            // The journal does not say which month a removed order was in
+            Map<String, Order> orders = readOrdersSnapshot();
+            orders.keySet().removeAll(removed);
+            orders.putAll(changed);
+            writeOrdersSnapshot(orders);
+            return;
         }
+        Map<YearMonth, Map<String, Order>> changesByMonth = new TreeMap<>();
+        for (Map.Entry<String, Order> entry : changed.entrySet()) {
+            changesByMonth.computeIfAbsent(segmentMonth(entry.getValue()), month -> new LinkedHashMap<>())
+                    .put(entry.getKey(), entry.getValue());
+        }
+
+        migrateLegacyOrders();
+        OrderManifest manifest = orderManifestFile.getFile().exists() ? readOrderManifest() : restoreOrderManifest();
+        for (Map.Entry<YearMonth, Map<String, Order>> entry : changesByMonth.entrySet()) {
+            FileCommitter segmentFile = orderSegmentFile(entry.getKey());
+            Map<String, Order> segmentOrders = new LinkedHashMap<>();
+            if (segmentFile.getFile().exists()) {
+                streamRecords(segmentFile.getFile(), orderReader, recordChecksum, JsonDataHandler::validateOrder,
+                        order -> segmentOrders.put(order.getOrderId(), order));
+            }
+            segmentOrders.putAll(entry.getValue());
+            segmentFile.write(orderIO.writer(), recordChecksum.sealAll(segmentOrders));
+            manifest.addSegment(entry.getKey(), segmentFile.getFile().getName(), segmentOrders.size());
+        }
+        // Segments first, as in writeOrdersSnapshot
+        orderManifestFile.write(orderIO.writer(), manifest);
+    }
+
+    private static YearMonth segmentMonth(Order order) {
+        return order.getOrderDate() != null ? YearMonth.from(order.getOrderDate()) : YearMonth.now();
+    }
+
+    private static FileCommitter orderSegmentFile(YearMonth month) {
+        return orderSegmentFiles.computeIfAbsent(month, m ->
+                new FileCommitter(storageCodec.fileName(orderSegmentStore(m)), orderDurability));
+    }
+
+    private static String orderSegmentStore(YearMonth month) {
+        return ORDER_SEGMENT_DIRECTORY + "/orders-" + month;
+    }
+
+    private static OrderManifest readOrderManifest() {
+        try {
+            return mapper.readValue(orderManifestFile.getFile(), OrderManifest.class);
+        } catch (IOException e) {
+            System.out.println("Error loading order manifest, rebuilding it from the segment files: " + e.getMessage());
+            return restoreOrderManifest();
+        }
+    }
+
+    // Rebuilds the manifest from the segment files and writes it, so the segments are not orphaned
+    private static OrderManifest restoreOrderManifest() {
+        OrderManifest manifest = rebuildOrderManifest();
+        try {
+            orderManifestFile.write(orderIO.writer(), manifest);
+        } catch (IOException e) {
+            System.out.println("Error saving rebuilt order manifest: " + e.getMessage());
+        }
+        return manifest;
+    }
+
+    // Lists the segment files actually present, for when the manifest is missing or unreadable
+    private static OrderManifest rebuildOrderManifest() {
+        OrderManifest manifest = new OrderManifest();
+        File[] files = new File(ORDER_SEGMENT_DIRECTORY).listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.matches("orders-\\d{4}-\\d{2}\\." + storageCodec.getExtension())) {
+                    manifest.addSegment(YearMonth.parse(name.substring(7, 14)), name, -1);
+                }
+            }
+        }
+        return manifest;
+    }
+
+    /**
+     * Persists a single new or changed order by appending one record to the order journal.
+     * @param order The order that was created or modified
+     */
+    public static void saveOrder(Order order) {
+        try {
+            appendOrder(order);
+        } catch (IOException e) {
+            System.out.println("Error saving order data: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Same as saveOrder, but a failed append is passed to the caller, e.g. so it can be retried.
+     * The mapped store is only updated once the append succeeds.
+     */
+    public static void appendOrder(Order order) throws IOException {
+        orderJournal.appendPut(order.getOrderId(), order);
+        putRecord(orderRecords, order.getOrderId(), order);
+    }
+
+    /**
+     * Reads one order by ID from the memory-mapped order store, without loading the others.
+     * The order is not linked to its customer, products or payment.
+     * @return The order as last saved, or null if it is not found
+     */
+    public static Order findOrder(String orderId) {
+        return findRecord(orderRecords, orderId);
+    }
+
+    /**
+     * Reads the payment for one order from the memory-mapped payment store, without loading payments.json.
+     * @return The payment as last saved, or null if the order has none
+     */
+    public static Payment findPaymentForOrder(String orderId) {
+        return findRecord(paymentRecords, orderId);
     }
 
     public static Map<String, Order> loadOrders() {
+        return loadOrders(null, null);
+    }
+
+    /**
+     * Loads the current state of the orders placed in the given months.
+     * Only the segments for those months are read.
+     * @param from First month to include, or null for no lower bound
+     * @param to Last month to include, or null for no upper bound
+     */
+    public static Map<String, Order> loadOrders(YearMonth from, YearMonth to) {
         Map<String, Order> orders = new HashMap<>();
         try {
-            // First check and fix corrupted file if needed
-            fixCorruptedOrdersFile();
-            
-            File file = new File(ORDER_FILE_PATH);
-            if (file.exists()) {
-                ObjectMapper readerMapper = mapper.copy();
-                orders = readerMapper.readValue(file, 
-                        readerMapper.getTypeFactory().constructMapType(HashMap.class, String.class, Order.class));
+            streamOrders(from, to, order -> orders.put(order.getOrderId(), order));
+            // Apply changes recorded since the last snapshot
+            orderJournal.replay(orders);
+            if (from == null && to == null) {
+                syncRecords(orderRecords, orders);
+            } else {
+                // The journal can hold orders from any month
+                orders.values().removeIf(order -> {
+                    YearMonth month = segmentMonth(order);
+                    return (from != null && month.isBefore(from)) || (to != null && month.isAfter(to));
+                });
             }
         } catch (IOException e) {
             System.out.println("Error loading order data: " + e.getMessage());
@@ -302,44 +721,371 @@ public class JsonDataHandler {
         return new ArrayList<>(loadOrders().values());
     }
 
-public static List<Order> getOrderHistory(Customer customer) {
-    List<Order> allOrders = getOrdersList();
-    
-    // Filter orders by customerId
-    return allOrders.stream()
-            .filter(order -> order.getCustomer().getUserID().equals(customer.getUserID()))
-            .collect(Collectors.toList());
-}
+    public static void streamOrders(Consumer<Order> consumer) {
+        streamOrders(null, null, consumer);
+    }
+
+    /**
+     * Reads the order segments for the given months one record at a time and passes each
+     * valid order to the consumer. Only one order is held by the loader at any time.
+     * The journal is not applied here; use loadOrders for the current state.
+     * @param from First month to include, or null for no lower bound
+     * @param to Last month to include, or null for no upper bound
+     * @param consumer Receives each valid order, oldest segment first
+     */
+    public static void streamOrders(YearMonth from, YearMonth to, Consumer<Order> consumer) {
+        try {
+            readOrderSegments(from, to, consumer);
+        } catch (IOException e) {
+            System.out.println("Error loading order data: " + e.getMessage());
+        }
+    }
+
+    private static void readOrderSegments(YearMonth from, YearMonth to, Consumer<Order> consumer) throws IOException {
+        migrateLegacyOrders();
+        OrderManifest manifest;
+        if (orderManifestFile.getFile().exists()) {
+            manifest = readOrderManifest();
+        } else if (!rebuildOrderManifest().getSegments().isEmpty()) {
+            // The manifest was lost but the segments are still there
+            System.out.println("Order manifest missing, rebuilding it from the segment files");
+            manifest = restoreOrderManifest();
+        } else {
+            // Create empty order storage if it doesn't exist
+            writeOrdersSnapshot(new HashMap<>());
+            System.out.println("Created new order storage in " + ORDER_SEGMENT_DIRECTORY + "/");
+            return;
+        }
+        for (OrderManifest.Segment segment : manifest.segmentsBetween(from, to)) {
+            File file = orderSegmentFile(segment.getYearMonth()).getFile();
+            if (!file.exists()) {
+                System.out.println("Missing order segment " + segment.getFile());
+                continue;
+            }
+            streamRecords(file, orderReader, recordChecksum, JsonDataHandler::validateOrder, consumer);
+        }
+    }
+
+    private static Map<String, Order> readOrdersSnapshot() throws IOException {
+        Map<String, Order> orders = new HashMap<>();
+        readOrderSegments(null, null, order -> orders.put(order.getOrderId(), order));
+        return orders;
+    }
+
+    // Splits a single orders.json from before monthly segments into segments, keeping the original.
+    // With another storage format, load once as JSON and then run StorageConverter.
+    private static synchronized void migrateLegacyOrders() throws IOException {
+        File legacyFile = new File(ORDER_FILE_PATH);
+        if (storageCodec != StorageCodec.JSON || !legacyFile.exists() || orderManifestFile.getFile().exists()) {
+            return;
+        }
+        Map<String, Order> orders = new HashMap<>();
+        streamRecords(legacyFile, orderReader, recordChecksum, JsonDataHandler::validateOrder,
+                order -> orders.put(order.getOrderId(), order));
+        writeOrdersSnapshot(orders);
+        File migratedFile = new File(ORDER_FILE_PATH + ".migrated");
+        Files.move(legacyFile.toPath(), migratedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        System.out.println("Moved " + orders.size() + " orders from " + ORDER_FILE_PATH + " into monthly segments in "
+                + ORDER_SEGMENT_DIRECTORY + "/ (original kept as " + migratedFile.getName() + ")");
+    }
+
+    private static String validateOrder(String key, Order order) {
+        if (order.getOrderId() == null || !order.getOrderId().equals(key)) {
+            return "order ID does not match its key";
+        }
+        if (order.getOrderDate() == null || order.getStatus() == null) {
+            return "missing order date or status";
+        }
+        return null;
+    }
+
+    /**
+     * Streams a JSON object of the form {"id": record, ...} with a token parser,
+     * binding and validating one record at a time.
+     * Records that fail binding or validation are skipped. A syntax error stops the stream,
+     * keeping every record delivered before it.
+     * @param checksum Verifies each record's CRC32C before binding; records that fail are moved to
+     *                 the quarantine file. Null for files whose records carry no checksum.
+     * @param validator Returns null for a valid record, otherwise the reason it is rejected
+     */
+    private static <T> void streamRecords(File file, ObjectReader recordReader, RecordChecksum checksum,
+                                          BiFunction<String, T, String> validator,
+                                          Consumer<T> consumer) throws IOException {
+        int loaded = 0;
+        int skipped = 0;
+        try (JsonParser parser = mapper.getFactory().createParser(file)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                System.out.println("Skipping " + file.getName() + ": expected a JSON object of records");
+                return;
+            }
+            JsonStreamContext recordsContext = parser.getParsingContext();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.getCurrentName();
+                parser.nextToken();
+                T record;
+                JsonNode node = null;
+                try {
+                    if (checksum == null) {
+                        record = recordReader.readValue(parser);
+                    } else {
+                        node = parser.readValueAsTree();
+                        if (checksum.verify(node) == RecordChecksum.Result.MISMATCH) {
+                            System.out.println("Quarantined record " + key + " in " + file.getName() + ": checksum mismatch");
+                            checksum.quarantine(file, key, "checksum mismatch", node);
+                            skipped++;
+                            continue;
+                        }
+                        record = recordReader.readValue(node);
+                    }
+                } catch (JsonParseException e) {
+                    throw e;
+                } catch (JsonProcessingException e) {
+                    // Binding failed part way through the record; move past the rest of it
+                    while (parser.getParsingContext() != recordsContext && parser.nextToken() != null) {
+                    }
+                    System.out.println("Skipping record " + key + " in " + file.getName() + ": " + e.getOriginalMessage());
+                    if (node != null) {
+                        checksum.quarantine(file, key, e.getOriginalMessage(), node);
+                    }
+                    skipped++;
+                    continue;
+                }
+
+                String problem = record == null ? "empty record" : validator.apply(key, record);
+                if (problem != null) {
+                    System.out.println("Skipping record " + key + " in " + file.getName() + ": " + problem);
+                    if (node != null) {
+                        checksum.quarantine(file, key, problem, node);
+                    }
+                    skipped++;
+                    continue;
+                }
+                consumer.accept(record);
+                loaded++;
+            }
+        } catch (JsonParseException e) {
+            System.out.println("Stopped reading corrupted " + file.getName() + " at line "
+                    + e.getLocation().getLineNr() + " after " + loaded + " records: " + e.getOriginalMessage());
+            // The next save writes back only the records read so far, so keep the original for recovery
+            File copy = FileCommitter.preserveCorrupt(file);
+            if (copy != null) {
+                System.out.println("Kept a copy of the corrupted file as " + copy.getName());
+            }
+        }
+        if (skipped > 0) {
+            System.out.println("Skipped " + skipped + " invalid record(s) in " + file.getName());
+        }
+    }
+
+    /**
+     * Links stored orders back to the loaded customers and products by ID.
+     * Only order IDs are added to the customers' histories; the orders are resolved when a history is read.
+     * Line items keep their stored name and price, so receipts still show what was paid.
+     */
+    public static void resolveOrders(Collection<Order> orders, Collection<User> customers,
+                                     Map<String, Product> products) {
+        Map<String, Customer> customersById = new HashMap<>();
+        for (User user : customers) {
+            if (user instanceof Customer) {
+                customersById.put(user.getUserID(), (Customer) user);
+            }
+        }
+        for (Order order : orders) {
+            Customer customer = customersById.get(order.getCustomerId());
+            if (customer != null) {
+                order.setCustomer(customer);
+                // Customers saved before order IDs were stored have none yet
+                customer.addOrderId(order.getOrderId());
+            }
+            attachProducts(order.getItems(), products);
+        }
+    }
+
+    // Links each customer's cart items to the current catalog products
+    public static void resolveCarts(Collection<User> customers, Map<String, Product> products) {
+        for (User user : customers) {
+            if (user instanceof Customer && ((Customer) user).getCart() != null) {
+                attachProducts(((Customer) user).getCart().getItems(), products);
+            }
+        }
+    }
+
+    // Links each order to its payment so receipts do not need to reread payments.json
+    public static void resolvePayments(Collection<Order> orders, Collection<Payment> payments) {
+        Map<String, Payment> paymentsByOrder = paymentsByOrder(payments);
+        for (Order order : orders) {
+            Payment payment = paymentsByOrder.get(order.getOrderId());
+            if (payment != null) {
+                order.setPayment(payment);
+            }
+        }
+    }
+
+    private static void attachProducts(List<CartItem> items, Map<String, Product> products) {
+        for (CartItem item : items) {
+            Product product = products.get(item.getProductId());
+            if (product != null) {
+                item.attachProduct(product);
+            }
+        }
+    }
 
     public static void savePayments(Map<String, Payment> payments) {
         try {
-            ObjectMapper paymentMapper = mapper.copy();
-            File file = new File(PAYMENTS_FILE_PATH);
-            paymentMapper.enable(SerializationFeature.INDENT_OUTPUT);
-            paymentMapper.writeValue(file, payments);
+            paymentJournal.writeSnapshot(payments, JsonDataHandler::writePaymentsSnapshot);
+        } catch (IOException e) {
+            System.out.println("Error saving payment data: " + e.getMessage());
+            return;
+        }
+        rewriteRecords(paymentRecords, paymentsByOrder(payments.values()));
+    }
+
+    private static void writePaymentsSnapshot(Map<String, Payment> payments) throws IOException {
+        paymentFile.write(paymentIO.writer(), recordChecksum.sealAll(payments));
+    }
+
+    /**
+     * Persists a single new or changed payment by appending it to the payment journal.
+     */
+    public static void savePayment(Payment payment) {
+        try {
+            appendPayment(payment);
         } catch (IOException e) {
             System.out.println("Error saving payment data: " + e.getMessage());
         }
     }
 
+    /**
+     * Same as savePayment, but a failed append is passed to the caller, e.g. so it can be retried.
+     */
+    public static void appendPayment(Payment payment) throws IOException {
+        paymentJournal.appendPut(payment.getPaymentId(), payment);
+        putRecord(paymentRecords, payment.getOrderId(), payment);
+    }
+
     public static Map<String, Payment> loadPayments() {
         Map<String, Payment> payments = new HashMap<>();
+        streamPayments(payment -> payments.put(payment.getPaymentId(), payment));
+        try {
+            // Apply changes recorded since the last snapshot
+            paymentJournal.replay(payments);
+        } catch (IOException e) {
+            System.out.println("Error loading payment data: " + e.getMessage());
+        }
+        syncRecords(paymentRecords, paymentsByOrder(payments.values()));
+        return payments;
+    }
+
+    private static Map<String, Payment> paymentsByOrder(Collection<Payment> payments) {
+        Map<String, Payment> paymentsByOrder = new HashMap<>();
+        for (Payment payment : payments) {
+            paymentsByOrder.put(payment.getOrderId(), payment);
+        }
+        return paymentsByOrder;
+    }
+
+    // The mapped stores only speed up lookups, so their errors are reported but never fail a load or save
+
+    private static <T> T findRecord(MappedRecordStore<T> store, String key) {
+        try {
+            return store.find(key);
+        } catch (IOException e) {
+            System.out.println("Error reading record " + key + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static <T> void putRecord(MappedRecordStore<T> store, String key, T record) {
+        try {
+            store.put(key, record);
+        } catch (IOException e) {
+            System.out.println("Error updating record " + key + ": " + e.getMessage());
+        }
+    }
+
+    // Called after a full snapshot, so the store is written back as well
+    private static <T> void rewriteRecords(MappedRecordStore<T> store, Map<String, ? extends T> records) {
+        try {
+            store.rewrite(records);
+            store.force();
+        } catch (IOException e) {
+            System.out.println("Error rewriting record store: " + e.getMessage());
+        }
+    }
+
+    // Brings a mapped store in step with the loaded records, e.g. after a crash between a journal append
+    // and the store update, or a format change. Stale or missing records are written again;
+    // records that no longer exist mean a full rewrite.
+    private static <T> void syncRecords(MappedRecordStore<T> store, Map<String, ? extends T> records) {
+        try {
+            if (!records.keySet().containsAll(store.keys())) {
+                store.rewrite(records);
+                store.force();
+                return;
+            }
+            boolean changed = false;
+            for (Map.Entry<String, ? extends T> entry : records.entrySet()) {
+                if (!store.matches(entry.getKey(), entry.getValue())) {
+                    store.put(entry.getKey(), entry.getValue());
+                    changed = true;
+                }
+            }
+            if (changed) {
+                store.force();
+            }
+        } catch (IOException e) {
+            System.out.println("Error rewriting record store: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the order and payment record stores back to their files. Called when the program exits.
+     */
+    public static void forceRecordStores() {
+        orderRecords.force();
+        paymentRecords.force();
+    }
+
+    /**
+     * Reads payments.json one record at a time and passes each valid payment to the consumer.
+     * The journal is not applied here; use loadPayments for the current state.
+     * @param consumer Receives each valid payment in file order
+     */
+    public static void streamPayments(Consumer<Payment> consumer) {
         try {
-            // First check and fix corrupted file if needed
-            fixCorruptedPaymentsFile();
-            
             File file = new File(PAYMENTS_FILE_PATH);
-            if (file.exists()) {
-                ObjectMapper readerMapper = mapper.copy();
-                payments = readerMapper.readValue(file, 
-                        readerMapper.getTypeFactory().constructMapType(HashMap.class, String.class, Payment.class));
+            if (!file.exists()) {
+                // Create empty payments file if it doesn't exist
+                writePaymentsSnapshot(new HashMap<>());
+                System.out.println("Created new payments.json file");
+                return;
             }
+            streamRecords(file, paymentReader, recordChecksum, JsonDataHandler::validatePayment, consumer);
         } catch (IOException e) {
             System.out.println("Error loading payment data: " + e.getMessage());
         }
+    }
+
+    private static Map<String, Payment> readPaymentsSnapshot() throws IOException {
+        Map<String, Payment> payments = new HashMap<>();
+        File file = new File(PAYMENTS_FILE_PATH);
+        if (file.exists()) {
+            streamRecords(file, paymentReader, recordChecksum, JsonDataHandler::validatePayment,
+                    payment -> payments.put(payment.getPaymentId(), payment));
+        }
         return payments;
     }
 
+    private static String validatePayment(String key, Payment payment) {
+        if (payment.getPaymentId() == null || !payment.getPaymentId().equals(key)) {
+            return "payment ID does not match its key";
+        }
+        if (payment.getOrderId() == null) {
+            return "missing order ID";
+        }
+        return null;
+    }
+
     public static void savePaymentsList(List<Payment> paymentsList) {
         Map<String, Payment> paymentsMap = new HashMap<>();
         for (Payment payment : paymentsList) {
@@ -352,50 +1098,80 @@ public static List<Order> getOrderHistory(Customer customer) {
         return new ArrayList<>(loadPayments().values());
     }
 
-    // Add this method after the getPaymentsList() method
-    public static void fixCorruptedOrdersFile() {
-        try {
-            // Fix orders.json
-            File ordersFile = new File(ORDER_FILE_PATH);
-            if (ordersFile.exists()) {
-                String content = java.nio.file.Files.readString(ordersFile.toPath());
-                if (content.contains("<")) {
-                    // Create empty orders file
-                    Map<String, Order> emptyOrders = new HashMap<>();
-                    saveOrders(emptyOrders);
-                    System.out.println("Fixed corrupted orders.json file");
-                }
-            } else {
-                // Create empty orders file if it doesn't exist
-                Map<String, Order> emptyOrders = new HashMap<>();
-                saveOrders(emptyOrders);
-                System.out.println("Created new orders.json file");
+    /**
+     * Registers the customer, order, payment, product and cart journals with a compactor.
+     * Admins are always saved as a whole and have no journal.
+     */
+    public static void registerCompactions(LogCompactor compactor) {
+        compactor.register("customers", customerJournal::size, () -> customerJournal.compact(
+                JsonDataHandler::readCustomersSnapshot, JsonDataHandler::writeCustomersSnapshot));
+        compactor.register("orders", orderJournal::size, () -> {
+            boolean compacted = orderJournal.compact(JsonDataHandler::writeOrderChanges);
+            orderRecords.compact();
+            return compacted;
+        });
+        compactor.register("payments", paymentJournal::size, () -> {
+            boolean compacted = paymentJournal.compact(JsonDataHandler::readPaymentsSnapshot,
+                    JsonDataHandler::writePaymentsSnapshot);
+            paymentRecords.compact();
+            return compacted;
+        });
+        compactor.register("products", productJournal::size, () -> productJournal.compact(
+                JsonDataHandler::readProductsSnapshot, JsonDataHandler::writeProductsSnapshot));
+        compactor.register("carts", cartJournal::size, () -> cartJournal.compact(
+                JsonDataHandler::readCartsSnapshot, JsonDataHandler::writeCartsSnapshot));
+    }
+
+    /**
+     * Rewrites every data file from one storage format into the other, token by token,
+     * without binding any records. The source files are left in place.
+     * Record checksums are computed over JSON, so they stay valid in either format.
+     * The journals are JSON lines in both formats and are not touched.
+     */
+    public static void convertStorage(StorageCodec from, StorageCodec to) throws IOException {
+        JsonFactory sourceFactory = from.createFactory();
+        JsonFactory targetFactory = to.createFactory();
+        // The committer forces and closes the stream itself
+        targetFactory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        for (String store : List.of(CUSTOMER_STORE, ADMIN_STORE, PRODUCT_STORE, PAYMENT_STORE, CART_STORE)) {
+            convertFile(from.fileName(store), to.fileName(store), sourceFactory, targetFactory);
+        }
+
+        File manifestFile = new File(from.fileName(ORDER_MANIFEST_STORE));
+        if (manifestFile.exists()) {
+            OrderManifest manifest = createObjectMapper(sourceFactory).readValue(manifestFile, OrderManifest.class);
+            for (OrderManifest.Segment segment : manifest.getSegments()) {
+                String segmentStore = orderSegmentStore(segment.getYearMonth());
+                convertFile(from.fileName(segmentStore), to.fileName(segmentStore), sourceFactory, targetFactory);
+                segment.setFile(new File(to.fileName(segmentStore)).getName());
             }
-        } catch (IOException e) {
-            System.out.println("Error fixing corrupted orders file: " + e.getMessage());
-        }
-    }
-    // Add this method after the fixCorruptedOrdersFile() method
-public static void fixCorruptedPaymentsFile() {
-    try {
-        // Fix payments.json
-        File paymentsFile = new File(PAYMENTS_FILE_PATH);
-        if (paymentsFile.exists()) {
-            String content = java.nio.file.Files.readString(paymentsFile.toPath());
-            if (content.contains("<")) {
-                // Create empty payments file
-                Map<String, Payment> emptyPayments = new HashMap<>();
-                savePayments(emptyPayments);
-                System.out.println("Fixed corrupted payments.json file");
+            ObjectWriter manifestWriter = createObjectMapper(targetFactory).writer();
+            if (to == StorageCodec.JSON) {
+                manifestWriter = manifestWriter.withDefaultPrettyPrinter();
             }
-        } else {
-            // Create empty payments file if it doesn't exist
-            Map<String, Payment> emptyPayments = new HashMap<>();
-            savePayments(emptyPayments);
-            System.out.println("Created new payments.json file");
+            new FileCommitter(to.fileName(ORDER_MANIFEST_STORE), Durability.ALWAYS).write(manifestWriter, manifest);
         }
-    } catch (IOException e) {
-        System.out.println("Error fixing corrupted payments file: " + e.getMessage());
     }
-}
+
+    private static void convertFile(String sourcePath, String targetPath, JsonFactory sourceFactory,
+                                    JsonFactory targetFactory) throws IOException {
+        File source = new File(sourcePath);
+        if (!source.exists()) {
+            return;
+        }
+        new FileCommitter(targetPath, Durability.ALWAYS).write(out -> {
+            try (JsonParser parser = sourceFactory.createParser(source);
+                 JsonGenerator generator = targetFactory.createGenerator(out)) {
+                if (!compactOutput) {
+                    generator.useDefaultPrettyPrinter();
+                }
+                if (parser.nextToken() != null) {
+                    generator.copyCurrentStructure(parser);
+                }
+            }
+        });
+        System.out.println("Converted " + sourcePath + " (" + source.length() + " bytes) to " + targetPath
+                + " (" + new File(targetPath).length() + " bytes)");
+    }
 }
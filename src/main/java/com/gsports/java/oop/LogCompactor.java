@@ -0,0 +1,109 @@
+package com.gsports.java.oop;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Folds the store journals into their snapshots in the background, so the journals
+ * stay short and loading a store costs its snapshot plus a small tail of changes.
+ * Every interval, each journal that has grown past the threshold is compacted.
+ * Appends carry on while a journal is compacted (see RecordJournal.compact).
+ * The interval and threshold can be set with -Dgsports.compactionIntervalMs and -Dgsports.compactionThresholdBytes.
+ */
+public final class LogCompactor {
+    private static final long DEFAULT_INTERVAL_MS = 30_000;
+    private static final long DEFAULT_THRESHOLD_BYTES = 256 * 1024;
+
+    /**
+     * Folds one journal into its snapshot.
+     * @return false if there was nothing to fold
+     */
+    @FunctionalInterface
+    public interface Compaction {
+        boolean compact() throws IOException;
+    }
+
+    private record Journal(String name, LongSupplier size, Compaction compaction) {}
+
+    private final List<Journal> journals = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler;
+    private final long thresholdBytes;
+
+    public LogCompactor() {
+        this(Long.getLong("gsports.compactionIntervalMs", DEFAULT_INTERVAL_MS),
+                Long.getLong("gsports.compactionThresholdBytes", DEFAULT_THRESHOLD_BYTES));
+    }
+
+    /**
+     * @param intervalMs How often the journal sizes are checked
+     * @param thresholdBytes Journal size at which it is compacted
+     */
+    public LogCompactor(long intervalMs, long thresholdBytes) {
+        this.thresholdBytes = Math.max(1, thresholdBytes);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gsports-compactor");
+            // A compaction cut short leaves the journal in place, so it must not keep the JVM alive
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::compactDue, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param size Current size of the journal in bytes
+     */
+    public void register(String name, LongSupplier size, Compaction compaction) {
+        journals.add(new Journal(name, size, compaction));
+    }
+
+    /**
+     * Compacts every journal that has reached the threshold.
+     * @return The number of journals compacted
+     */
+    public int compactDue() {
+        return compact(thresholdBytes);
+    }
+
+    /**
+     * Compacts every journal that has any entries.
+     * @return The number of journals compacted
+     */
+    public int compactAll() {
+        return compact(1);
+    }
+
+    private synchronized int compact(long minimumBytes) {
+        int compacted = 0;
+        for (Journal journal : journals) {
+            if (journal.size().getAsLong() < minimumBytes) {
+                continue;
+            }
+            try {
+                if (journal.compaction().compact()) {
+                    compacted++;
+                }
+            } catch (IOException | RuntimeException e) {
+                // The journal is kept as it is and compacted again next time
+                System.out.println("Error compacting " + journal.name() + " journal: " + e.getMessage());
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * Stops the background compactions, waiting for one that is running.
+     */
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.gsports.java.oop;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+/**
+ * Keyed records in memory-mapped segment files, for reading a single record
+ * without parsing the whole data set.
+ *
+ * Each record is a fixed 16-byte header followed by the key and the serialized record:
+ * <pre>
+ *   int magic | int key length | int payload length | int CRC32C of key and payload | key | payload
+ * </pre>
+ * A zero where the next magic would be marks the end of a segment. Records are appended,
+ * and an in-memory index maps each key to the segment and offset of its latest record,
+ * so a lookup binds straight from the mapped bytes. Opening a store only reads the headers.
+ *
+ * The store is a read-side copy: the regular data files stay the source of truth,
+ * and callers rewrite the store from them when it falls out of step.
+ */
+public class MappedRecordStore<T> {
+    private static final int MAGIC = 0x47535231; // "GSR1"
+    private static final int HEADER_BYTES = 16;
+    private static final int SEGMENT_BYTES = Integer.getInteger("gsports.mappedSegmentBytes", 8 * 1024 * 1024);
+
+    // Where the latest record for a key starts
+    private record Location(int segment, int offset, int keyLength, int payloadLength) {
+        int payloadOffset() {
+            return offset + HEADER_BYTES + keyLength;
+        }
+    }
+
+    private final File directory;
+    private final String name;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final Map<String, Location> index = new HashMap<>();
+    private boolean opened;
+    // Records in the segments, including ones replaced by a later record with the same key
+    private int recordCount;
+    // Next write position
+    private int currentSegment;
+    private int currentOffset;
+
+    /**
+     * @param directory Directory holding the segment files
+     * @param name File name prefix; segments are named name-0.dat, name-1.dat, ...
+     */
+    public MappedRecordStore(String directory, String name, ObjectReader reader, ObjectWriter writer) {
+        this.directory = new File(directory);
+        this.name = name;
+        this.reader = reader;
+        // Stored records are never indented
+        this.writer = writer.without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * @return The latest record stored under the key, or null if there is none or it is damaged
+     */
+    public synchronized T find(String key) throws IOException {
+        open();
+        Location location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        ByteBuffer segment = segments.get(location.segment());
+        int crcStart = location.offset() + HEADER_BYTES;
+        int end = location.payloadOffset() + location.payloadLength();
+        CRC32C crc = new CRC32C();
+        crc.update(segment.slice(crcStart, end - crcStart));
+        if ((int) crc.getValue() != segment.getInt(location.offset() + 12)) {
+            System.out.println("Checksum mismatch for record " + key + " in " + segmentFile(location.segment()).getName());
+            return null;
+        }
+        // Binds straight from the mapped pages without copying the record into a byte array
+        return reader.readValue(new ByteBufferBackedInputStream(
+                segment.slice(location.payloadOffset(), location.payloadLength())));
+    }
+
+    public synchronized boolean contains(String key) throws IOException {
+        open();
+        return index.containsKey(key);
+    }
+
+    /**
+     * Checks the latest record under the key against a record without binding it,
+     * by comparing the serialized bytes and the stored checksum.
+     * @return Whether the store holds exactly this record, undamaged
+     */
+    public synchronized boolean matches(String key, T record) throws IOException {
+        open();
+        Location location = index.get(key);
+        if (location == null) {
+            return false;
+        }
+        byte[] payload = writer.writeValueAsBytes(record);
+        ByteBuffer segment = segments.get(location.segment());
+        if (payload.length != location.payloadLength()
+                || !segment.slice(location.payloadOffset(), payload.length).equals(ByteBuffer.wrap(payload))) {
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(key.getBytes(StandardCharsets.UTF_8));
+        crc.update(payload);
+        return (int) crc.getValue() == segment.getInt(location.offset() + 12);
+    }
+
+    public synchronized Set<String> keys() throws IOException {
+        open();
+        return Set.copyOf(index.keySet());
+    }
+
+    /**
+     * Appends a record; it replaces any earlier record with the same key in the index.
+     * The space of replaced records is reclaimed by the next rewrite.
+     */
+    public synchronized void put(String key, T record) throws IOException {
+        open();
+        append(key, writer.writeValueAsBytes(record));
+    }
+
+    private void append(String key, byte[] payload) throws IOException {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = HEADER_BYTES + keyBytes.length + payload.length;
+
+        // Leave room for the end marker after the record
+        if (currentOffset + length + 4 > segments.get(currentSegment).capacity()) {
+            currentSegment++;
+            currentOffset = 0;
+            // Remapping also grows a reused segment that is too small for this record
+            MappedByteBuffer next = map(currentSegment, length + 4);
+            if (currentSegment == segments.size()) {
+                segments.add(next);
+            } else {
+                segments.set(currentSegment, next);
+            }
+        }
+
+        MappedByteBuffer segment = segments.get(currentSegment);
+        CRC32C crc = new CRC32C();
+        crc.update(keyBytes);
+        crc.update(payload);
+        // End marker first and magic last, so an interrupted append is not picked up as a record;
+        // a torn page after a crash is caught by the checksum on lookup
+        segment.putInt(currentOffset + length, 0);
+        segment.putInt(currentOffset + 4, keyBytes.length);
+        segment.putInt(currentOffset + 8, payload.length);
+        segment.putInt(currentOffset + 12, (int) crc.getValue());
+        segment.put(currentOffset + HEADER_BYTES, keyBytes);
+        segment.put(currentOffset + HEADER_BYTES + keyBytes.length, payload);
+        segment.putInt(currentOffset, MAGIC);
+
+        index.put(key, new Location(currentSegment, currentOffset, keyBytes.length, payload.length));
+        currentOffset += length;
+        recordCount++;
+    }
+
+    /**
+     * Replaces the contents of the store with the given records, reusing the existing segment files.
+     */
+    public synchronized void rewrite(Map<String, ? extends T> records) throws IOException {
+        open();
+        clear();
+        for (Map.Entry<String, ? extends T> entry : records.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Rewrites the store with only the latest record for each key, reclaiming the space of replaced records.
+     * The records are copied as they are, without binding them.
+     */
+    public synchronized void compact() throws IOException {
+        open();
+        if (recordCount == index.size()) {
+            return;
+        }
+        Map<String, byte[]> latest = new LinkedHashMap<>();
+        for (Map.Entry<String, Location> entry : index.entrySet()) {
+            Location location = entry.getValue();
+            byte[] payload = new byte[location.payloadLength()];
+            segments.get(location.segment()).get(location.payloadOffset(), payload);
+            latest.put(entry.getKey(), payload);
+        }
+        clear();
+        for (Map.Entry<String, byte[]> entry : latest.entrySet()) {
+            append(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void clear() {
+        index.clear();
+        for (MappedByteBuffer segment : segments) {
+            segment.putInt(0, 0);
+        }
+        currentSegment = 0;
+        currentOffset = 0;
+        recordCount = 0;
+    }
+
+    /**
+     * Writes changed pages back to the files, so the store survives a crash of the machine.
+     * Not needed for lookups within this process.
+     */
+    public synchronized void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    // Maps the existing segment files and rebuilds the index from the record headers
+    private void open() throws IOException {
+        if (opened) {
+            return;
+        }
+        directory.mkdirs();
+        for (int number = 0; segmentFile(number).exists(); number++) {
+            segments.add(map(number, 0));
+            scan(number);
+        }
+        if (segments.isEmpty()) {
+            segments.add(map(0, 0));
+        }
+        opened = true;
+    }
+
+    private void scan(int number) {
+        MappedByteBuffer segment = segments.get(number);
+        int offset = 0;
+        while (offset + HEADER_BYTES <= segment.capacity() && segment.getInt(offset) == MAGIC) {
+            int keyLength = segment.getInt(offset + 4);
+            int payloadLength = segment.getInt(offset + 8);
+            // The header is not covered by the checksum, so a torn length must not overflow the bounds check
+            long end = (long) offset + HEADER_BYTES + keyLength + payloadLength;
+            if (keyLength < 0 || payloadLength < 0 || end > segment.capacity()) {
+                System.out.println("Stopped reading " + segmentFile(number).getName() + " at a damaged header");
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            segment.get(offset + HEADER_BYTES, keyBytes);
+            index.put(new String(keyBytes, StandardCharsets.UTF_8), new Location(number, offset, keyLength, payloadLength));
+            offset = (int) end;
+            recordCount++;
+        }
+        // Appends continue after the last record; segments emptied by a rewrite are reused later
+        if (offset > 0 || number == 0) {
+            currentSegment = number;
+            currentOffset = offset;
+        }
+    }
+
+    private MappedByteBuffer map(int number, int minimumBytes) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile(number), "rw");
+             FileChannel channel = file.getChannel()) {
+            long size = Math.max(channel.size(), Math.max(SEGMENT_BYTES, minimumBytes));
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private File segmentFile(int number) {
+        return new File(directory, name + "-" + number + ".dat");
+    }
+}
@@ -7,6 +7,7 @@ import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.gsports.java.oop.Order.OrderStatus;
 
 public class Order {
@@ -22,9 +23,23 @@ public class Order {
         CANCEL_REQUESTED,
         REFUND_REQUESTED,
     }
+
+    /**
+     * Told about every status change, e.g. to keep OrderIndex's status sets current.
+     */
+    @FunctionalInterface
+    public interface StatusListener {
+        void statusChanged(Order order, OrderStatus oldStatus, OrderStatus newStatus);
+    }
+
+    // Set by UserMenu to its order index; does nothing until then
+    private static volatile StatusListener statusListener = (order, oldStatus, newStatus) -> {};
     
     private String orderId;
+    // Stored as customerId; the full customer is only read from older files and is re-linked on load
+    @JsonProperty(value = "customer", access = JsonProperty.Access.WRITE_ONLY)
     private Customer customer;
+    private String customerId;
     private ArrayList<CartItem> items;
     private LocalDateTime orderDate;
     private double totalAmount;      // Total Amount before tax
@@ -52,6 +67,7 @@ public class Order {
                 String shippingAddress, Payment payment) {
                     this.orderId = orderId;
                     this.customer = customer;
+                    this.customerId = customer.getUserID();
                     this.items = new ArrayList<>(items);
                     this.orderDate = LocalDateTime.now();
                     this.totalAmount = totalAmount;
@@ -78,6 +94,17 @@ public class Order {
     
     public void setCustomer(Customer customer) {
         this.customer = customer;
+        if (customer != null) {
+            this.customerId = customer.getUserID();
+        }
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    public void setCustomerId(String customerId) {
+        this.customerId = customerId;
     }
     
     public List<CartItem> getItems() {
@@ -141,8 +168,11 @@ public class Order {
     }
     
     public void setStatus(OrderStatus status) {
-        this.status = status;
-        this.lastUpdated = LocalDateTime.now();
+        changeStatus(status);
+    }
+
+    public static void setStatusListener(StatusListener listener) {
+        statusListener = listener;
     }
     
     public LocalDateTime getLastUpdated() {
@@ -154,8 +184,17 @@ public class Order {
     }
     
     public void updateStatus(OrderStatus newStatus) {
+        changeStatus(newStatus);
+    }
+
+    // Every status change goes through here so the status listener never misses one
+    private synchronized void changeStatus(OrderStatus newStatus) {
+        OrderStatus oldStatus = this.status;
         this.status = newStatus;
         this.lastUpdated = LocalDateTime.now();
+        if (oldStatus != newStatus) {
+            statusListener.statusChanged(this, oldStatus, newStatus);
+        }
     }
    
     /**
@@ -252,29 +291,27 @@ public long getRemainingRefundTime() {
     public boolean progressStatus() {
         switch(status) {
             case PENDING:
-                status = OrderStatus.PROCESSING;
+                changeStatus(OrderStatus.PROCESSING);
                 break;
             case PROCESSING:
-                status = OrderStatus.SHIPPED;
+                changeStatus(OrderStatus.SHIPPED);
                 break;
             case SHIPPED:
-                status = OrderStatus.DELIVERED;
+                changeStatus(OrderStatus.DELIVERED);
                 break;
             case DELIVERED:
-                status = OrderStatus.COMPLETED;
+                changeStatus(OrderStatus.COMPLETED);
                 break;
             default:
                 return false; // Can't progress from COMPLETED or CANCELED
         }
-        this.lastUpdated = LocalDateTime.now();
         return true;
     }
 
     // Method to cancel an order (only if not shipped yet)
     public boolean cancelOrder() {
         if (status == OrderStatus.PENDING || status == OrderStatus.PROCESSING) {
-            status = OrderStatus.CANCELLED;
-            this.lastUpdated = LocalDateTime.now();
+            changeStatus(OrderStatus.CANCELLED);
             return true;
         }
         return false; // Can't cancel if already shipped
@@ -294,12 +331,9 @@ public long getRemainingRefundTime() {
 
     public String generateReceipt() {
         StringBuilder receipt = new StringBuilder();
-        List<Payment> payments = JsonDataHandler.getPaymentsList();
-        for (Payment payment : payments) {
-            if (payment.getOrderId().equals(this.orderId)) {
-                this.payment = payment;
-                break;
-            }
+        if (this.payment == null) {
+            // Reads just this order's payment record instead of every payment
+            this.payment = JsonDataHandler.findPaymentForOrder(this.orderId);
         }
 
         // Receipt heorer with company logo
@@ -311,7 +345,8 @@ public long getRemainingRefundTime() {
         // Order information
         receipt.append(String.format("│ Order ID : %-52s │\n", this.orderId));
         receipt.append(String.format("│ Date     : %-52s │\n", getFormattedOrderDate()));
-        receipt.append(String.format("│ Customer : %-52s │\n", this.customer.getUsername()));
+        receipt.append(String.format("│ Customer : %-52s │\n",
+                this.customer != null ? this.customer.getUsername() : this.customerId));
         receipt.append("├─────────────────────────────────────────────────────────────────┤\n");
 
         // Shipping address
@@ -330,7 +365,7 @@ public long getRemainingRefundTime() {
         // Items
         int itemNum = 1;
         for (CartItem item : this.items) {
-            String productName = item.getProduct().getProdName();
+            String productName = item.getProductName();
             if (productName.length() > 27) {
                 productName = productName.substring(0, 24) + "...";
             }
@@ -338,7 +373,7 @@ public long getRemainingRefundTime() {
             receipt.append(String.format("│ %-2d │ %-29s │ RM%-9.2f │ RM%-10.2f │\n",
                     itemNum++,
                     productName,
-                    item.getProduct().getSellingPrice(),
+                    item.getPrice(),
                     item.getSubtotal()));
 
             // If there are multiple quantities, show it on the line below
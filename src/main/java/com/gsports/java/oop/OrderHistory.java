@@ -0,0 +1,96 @@
+package com.gsports.java.oop;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A customer's orders, kept as order IDs and resolved from the order store on first access.
+ * Loading a customer only reads the IDs, so customers load in time proportional to their
+ * own records rather than their whole history.
+ */
+public class OrderHistory extends AbstractList<Order> {
+    // Finds an order by ID; UserMenu replaces it with a lookup in its order index
+    private static volatile Function<String, Order> resolver = JsonDataHandler::findOrder;
+
+    private final Set<String> orderIds;
+    // Null until the history is first read
+    private List<Order> orders;
+
+    public OrderHistory() {
+        this(new ArrayList<>());
+    }
+
+    public OrderHistory(List<String> orderIds) {
+        this.orderIds = new LinkedHashSet<>(orderIds);
+    }
+
+    public static void setResolver(Function<String, Order> orderResolver) {
+        resolver = orderResolver;
+    }
+
+    /**
+     * @return The order IDs in the order they were placed, without resolving any orders
+     */
+    public synchronized List<String> getOrderIds() {
+        return new ArrayList<>(orderIds);
+    }
+
+    public synchronized boolean isResolved() {
+        return orders != null;
+    }
+
+    /**
+     * Records an order ID without resolving it, e.g. when linking stored orders to their customer.
+     */
+    public synchronized void addOrderId(String orderId) {
+        if (orderIds.add(orderId) && orders != null) {
+            Order order = resolver.apply(orderId);
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+    }
+
+    @Override
+    public synchronized Order get(int index) {
+        return resolve().get(index);
+    }
+
+    @Override
+    public synchronized int size() {
+        return resolve().size();
+    }
+
+    /**
+     * Adds a newly placed order. The order itself is kept, so it is found even before it has been saved.
+     */
+    @Override
+    public synchronized boolean add(Order order) {
+        List<Order> resolved = resolve();
+        if (!orderIds.add(order.getOrderId())) {
+            resolved.removeIf(existing -> existing.getOrderId().equals(order.getOrderId()));
+        }
+        resolved.add(order);
+        modCount++;
+        return true;
+    }
+
+    // Orders that can no longer be found (e.g. a quarantined record) are left out
+    private List<Order> resolve() {
+        if (orders == null) {
+            List<Order> resolved = new ArrayList<>();
+            for (String orderId : orderIds) {
+                Order order = resolver.apply(orderId);
+                if (order != null) {
+                    resolved.add(order);
+                }
+            }
+            orders = resolved;
+        }
+        return orders;
+    }
+}
@@ -0,0 +1,195 @@
+package com.gsports.java.oop;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import com.gsports.java.oop.Order.OrderStatus;
+
+/**
+ * In-memory indexes over the loaded orders, so the menus can find orders by ID,
+ * by customer, by status or by date without scanning every order or rereading the order files.
+ * Also keeps each customer's order totals (see CustomerStats) for ranking customers.
+ * Kept current by put() whenever an order is placed or changed, and by statusChanged()
+ * whenever an indexed order changes status.
+ */
+public final class OrderIndex implements Order.StatusListener {
+    private final Map<String, Order> ordersById = new HashMap<>();
+    private final Map<String, List<Order>> ordersByCustomer = new HashMap<>();
+    private final Map<OrderStatus, Set<Order>> ordersByStatus = new EnumMap<>(OrderStatus.class);
+    // Ordered by order date, then order ID; concurrent so date ranges can be read without the lock
+    private final NavigableMap<TimeKey, Order> ordersByTime = new ConcurrentSkipListMap<>();
+    private final Map<String, CustomerStats> statsByCustomer = new HashMap<>();
+
+    private record TimeKey(LocalDateTime orderDate, String orderId) implements Comparable<TimeKey> {
+        private static final Comparator<TimeKey> ORDER = Comparator
+                .comparing(TimeKey::orderDate, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+                .thenComparing(TimeKey::orderId, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+
+        static TimeKey of(Order order) {
+            return new TimeKey(order.getOrderDate(), order.getOrderId());
+        }
+
+        @Override
+        public int compareTo(TimeKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    public OrderIndex(Collection<Order> orders) {
+        for (Order order : orders) {
+            put(order);
+        }
+    }
+
+    /**
+     * Adds a new order, or replaces the indexed order with the same ID.
+     * @return The order it replaced, or null if the order is new
+     */
+    public synchronized Order put(Order order) {
+        Order previous = ordersById.put(order.getOrderId(), order);
+        if (previous != null) {
+            List<Order> previousList = ordersByCustomer.get(previous.getCustomerId());
+            if (previousList != null) {
+                previousList.remove(previous);
+            }
+            removeStatus(previous, previous.getStatus());
+            ordersByTime.remove(TimeKey.of(previous));
+            removeStats(previous, previousList);
+        }
+        ordersByCustomer.computeIfAbsent(order.getCustomerId(), id -> new ArrayList<>()).add(order);
+        addStatus(order, order.getStatus());
+        ordersByTime.put(TimeKey.of(order), order);
+        statsByCustomer.put(order.getCustomerId(), statsOf(order.getCustomerId()).withOrder(order));
+        return previous;
+    }
+
+    /**
+     * Moves an indexed order to the set for its new status. Orders that are not
+     * (or no longer) in the index are ignored, e.g. one still being loaded or built.
+     */
+    @Override
+    public synchronized void statusChanged(Order order, OrderStatus oldStatus, OrderStatus newStatus) {
+        if (ordersById.get(order.getOrderId()) != order) {
+            return;
+        }
+        removeStatus(order, oldStatus);
+        addStatus(order, newStatus);
+        // Cancelled orders no longer count towards the customer's spend
+        if ((oldStatus == OrderStatus.CANCELLED) != (newStatus == OrderStatus.CANCELLED)) {
+            double change = newStatus == OrderStatus.CANCELLED ? -order.getTotalAmount() : order.getTotalAmount();
+            statsByCustomer.put(order.getCustomerId(), statsOf(order.getCustomerId()).withSpend(change));
+        }
+    }
+
+    public synchronized Order find(String orderId) {
+        return ordersById.get(orderId);
+    }
+
+    /**
+     * @return The customer's orders in the order they were indexed; empty if there are none
+     */
+    public synchronized List<Order> ordersOf(String customerId) {
+        List<Order> orders = ordersByCustomer.get(customerId);
+        return orders == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(orders));
+    }
+
+    public synchronized int countOf(String customerId) {
+        List<Order> orders = ordersByCustomer.get(customerId);
+        return orders == null ? 0 : orders.size();
+    }
+
+    /**
+     * @return The orders with the status, in the order they were indexed or reached it
+     */
+    public synchronized List<Order> ordersWithStatus(OrderStatus status) {
+        Set<Order> orders = ordersByStatus.get(status);
+        return orders == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(orders));
+    }
+
+    public synchronized int countWithStatus(OrderStatus status) {
+        Set<Order> orders = ordersByStatus.get(status);
+        return orders == null ? 0 : orders.size();
+    }
+
+    /**
+     * @return Every order sorted by order date, newest or oldest first
+     */
+    public List<Order> ordersByDate(boolean newestFirst) {
+        return new ArrayList<>(newestFirst ? ordersByTime.descendingMap().values() : ordersByTime.values());
+    }
+
+    /**
+     * @param startDate First order date to include, or null for no lower bound
+     * @param endDate Last order date to include, or null for no upper bound
+     * @return A live view of the orders placed in the range, oldest first
+     */
+    public Collection<Order> ordersBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        NavigableMap<TimeKey, Order> range = ordersByTime;
+        if (startDate != null) {
+            range = range.tailMap(new TimeKey(startDate, null), true);
+        }
+        if (endDate != null) {
+            // Every order at endDate sorts before the first key after it
+            range = range.headMap(new TimeKey(endDate.plusNanos(1), null), false);
+        }
+        return Collections.unmodifiableCollection(range.values());
+    }
+
+    /**
+     * @return The customer's order totals; CustomerStats.NONE if they have no orders
+     */
+    public synchronized CustomerStats statsOf(String customerId) {
+        return statsByCustomer.getOrDefault(customerId, CustomerStats.NONE);
+    }
+
+    public synchronized int size() {
+        return ordersById.size();
+    }
+
+    // The latest order date is taken from the customer's remaining orders only when the removed order was it
+    private void removeStats(Order previous, List<Order> remaining) {
+        CustomerStats stats = statsByCustomer.get(previous.getCustomerId());
+        if (stats == null) {
+            return;
+        }
+        if (stats.orderCount() <= 1) {
+            statsByCustomer.remove(previous.getCustomerId());
+            return;
+        }
+        LocalDateTime latest = stats.lastOrderDate();
+        if (latest != null && latest.equals(previous.getOrderDate()) && remaining != null) {
+            latest = null;
+            for (Order order : remaining) {
+                LocalDateTime date = order.getOrderDate();
+                if (latest == null || (date != null && date.isAfter(latest))) {
+                    latest = date;
+                }
+            }
+        }
+        statsByCustomer.put(previous.getCustomerId(), stats.withoutOrder(previous, latest));
+    }
+
+    private void addStatus(Order order, OrderStatus status) {
+        if (status != null) {
+            ordersByStatus.computeIfAbsent(status, s -> new LinkedHashSet<>()).add(order);
+        }
+    }
+
+    private void removeStatus(Order order, OrderStatus status) {
+        Set<Order> orders = status == null ? null : ordersByStatus.get(status);
+        if (orders != null) {
+            orders.remove(order);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.gsports.java.oop;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Lists the monthly order segment files, oldest month first.
+ * Orders are partitioned by the month of their order date, so a loader that
+ * only needs a date range opens just the segments that overlap it.
+ */
+public class OrderManifest {
+    private List<Segment> segments = new ArrayList<>();
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    public void setSegments(List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * Adds the segment for a month, replacing any segment already listed for it.
+     */
+    public void addSegment(YearMonth month, String file, int orderCount) {
+        segments.removeIf(segment -> segment.getMonth().equals(month.toString()));
+        segments.add(new Segment(month.toString(), file, orderCount));
+        segments.sort((s1, s2) -> s1.getMonth().compareTo(s2.getMonth()));
+    }
+
+    /**
+     * @param from First month to include, or null for no lower bound
+     * @param to Last month to include, or null for no upper bound
+     * @return The segments for months in the range, oldest first
+     */
+    @JsonIgnore
+    public List<Segment> segmentsBetween(YearMonth from, YearMonth to) {
+        List<Segment> result = new ArrayList<>();
+        for (Segment segment : segments) {
+            YearMonth month = segment.getYearMonth();
+            if ((from == null || !month.isBefore(from)) && (to == null || !month.isAfter(to))) {
+                result.add(segment);
+            }
+        }
+        return result;
+    }
+
+    public static class Segment {
+        private String month;
+        private String file;
+        private int orderCount;
+
+        public Segment() {}
+
+        public Segment(String month, String file, int orderCount) {
+            this.month = month;
+            this.file = file;
+            this.orderCount = orderCount;
+        }
+
+        public String getMonth() {
+            return month;
+        }
+
+        public void setMonth(String month) {
+            this.month = month;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public int getOrderCount() {
+            return orderCount;
+        }
+
+        public void setOrderCount(int orderCount) {
+            this.orderCount = orderCount;
+        }
+
+        @JsonIgnore
+        public YearMonth getYearMonth() {
+            return YearMonth.parse(month);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.gsports.java.oop;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Write-behind persistence for the in-memory stores held by the menus.
+ * Instead of saving after every action, callers mark the changed record as dirty.
+ * Marking takes a copy of the record on the caller's thread, so the background thread
+ * only ever writes copies and never reads the menus' lists or objects while they change.
+ * It coalesces the marks and writes each dirty store once per flush,
+ * either on a fixed interval or as soon as enough changes have piled up.
+ * The interval and threshold can be set with -Dgsports.flushIntervalMs and -Dgsports.flushThreshold.
+ */
+public class PersistenceManager {
+    public enum Store {
+        CUSTOMERS,
+        ORDERS,
+        PAYMENTS,
+        CARTS
+    }
+
+    private static final long DEFAULT_FLUSH_INTERVAL_MS = 2000;
+    private static final int DEFAULT_FLUSH_THRESHOLD = 50;
+
+    /**
+     * Persists the copies of a store's changed records. Throwing keeps them dirty for the next flush.
+     */
+    @FunctionalInterface
+    public interface FlushAction<T> {
+        void write(Map<String, T> changed) throws IOException;
+    }
+
+    // How a store's records are copied when marked, and how the copies are written
+    private record StoreWriter<T>(UnaryOperator<T> snapshot, FlushAction<T> flushAction) {}
+
+    private final Map<Store, StoreWriter<?>> writers = new EnumMap<>(Store.class);
+    // The latest copy of each dirty record, by ID
+    private final Map<Store, Map<String, Object>> dirtyRecords = new EnumMap<>(Store.class);
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher;
+    private final long flushIntervalMs;
+    private final int flushThreshold;
+    private int pendingChanges;
+    private boolean flushQueued;
+
+    public PersistenceManager() {
+        this(Long.getLong("gsports.flushIntervalMs", DEFAULT_FLUSH_INTERVAL_MS),
+                Integer.getInteger("gsports.flushThreshold", DEFAULT_FLUSH_THRESHOLD));
+    }
+
+    /**
+     * @param flushIntervalMs How often dirty stores are written
+     * @param flushThreshold Number of pending changes that triggers a flush before the interval ends
+     */
+    public PersistenceManager(long flushIntervalMs, int flushThreshold) {
+        this.flushIntervalMs = flushIntervalMs;
+        this.flushThreshold = Math.max(1, flushThreshold);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "gsports-flusher");
+            // Unflushed changes are written by close(), so the flusher must not keep the JVM alive
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts the interval flushes. Call once the stores are registered.
+     * Until then, dirty records are only written by flush(), close() or reaching the threshold.
+     */
+    public void start() {
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets how a store is written.
+     * @param snapshot Makes a copy of a changed record that later changes to the record do not affect;
+     *                 called on the thread that marks the record
+     * @param flushAction Receives the copies of the records changed since the last flush, by ID, and persists them
+     */
+    public synchronized <T> void registerStore(Store store, UnaryOperator<T> snapshot,
+                                               FlushAction<T> flushAction) {
+        writers.put(store, new StoreWriter<>(snapshot, flushAction));
+    }
+
+    /**
+     * Records that a record has changed and needs to be written, as it is now.
+     * Call after every change; marking the same record again before the next flush only replaces its copy.
+     * Records of a store with no writer registered are ignored.
+     */
+    public <T> void markDirty(Store store, String id, T record) {
+        StoreWriter<T> writer = writerFor(store);
+        if (writer == null) {
+            return;
+        }
+        // Copied here, so the flusher never reads an object this thread may still be changing
+        Object copy = writer.snapshot().apply(record);
+        boolean flushNow;
+        synchronized (this) {
+            if (dirtyRecords.computeIfAbsent(store, s -> new LinkedHashMap<>()).put(id, copy) == null) {
+                pendingChanges++;
+            }
+            flushNow = pendingChanges >= flushThreshold && !flushQueued;
+            if (flushNow) {
+                flushQueued = true;
+            }
+        }
+        if (flushNow) {
+            try {
+                flusher.execute(this::flush);
+            } catch (RejectedExecutionException e) {
+                // Already closed; write on the caller's thread instead
+                flush();
+            }
+        }
+    }
+
+    public synchronized boolean isDirty(Store store) {
+        Map<String, Object> records = dirtyRecords.get(store);
+        return records != null && !records.isEmpty();
+    }
+
+    public synchronized boolean hasPendingChanges() {
+        return pendingChanges > 0;
+    }
+
+    /**
+     * Writes every dirty store. Stores with no changes are not touched.
+     * A store whose write fails stays dirty and is retried on the next flush.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            Map<Store, Map<String, Object>> batch;
+            synchronized (this) {
+                batch = new EnumMap<>(Store.class);
+                batch.putAll(dirtyRecords);
+                dirtyRecords.clear();
+                pendingChanges = 0;
+                flushQueued = false;
+            }
+
+            for (Map.Entry<Store, Map<String, Object>> entry : batch.entrySet()) {
+                Store store = entry.getKey();
+                try {
+                    write(store, entry.getValue());
+                } catch (IOException | RuntimeException e) {
+                    requeue(store, entry.getValue());
+                    System.out.println("Error saving " + store.name().toLowerCase() + " data, will retry: " + e);
+                }
+            }
+        }
+    }
+
+    // The copies were made by this store's snapshot function, so they have the writer's type
+    @SuppressWarnings("unchecked")
+    private <T> void write(Store store, Map<String, Object> copies) throws IOException {
+        StoreWriter<T> writer = writerFor(store);
+        writer.flushAction().write(Collections.unmodifiableMap((Map<String, T>) (Map<String, ?>) copies));
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized <T> StoreWriter<T> writerFor(Store store) {
+        return (StoreWriter<T>) writers.get(store);
+    }
+
+    // Copies marked again since the failed flush are newer, so they are kept
+    private synchronized void requeue(Store store, Map<String, Object> copies) {
+        Map<String, Object> pending = dirtyRecords.computeIfAbsent(store, s -> new LinkedHashMap<>());
+        for (Map.Entry<String, Object> entry : copies.entrySet()) {
+            if (pending.putIfAbsent(entry.getKey(), entry.getValue()) == null) {
+                pendingChanges++;
+            }
+        }
+    }
+
+    /**
+     * Stops the background flusher and writes anything still pending.
+     * Call before the program exits.
+     */
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+}
@@ -0,0 +1,163 @@
+package com.gsports.java.oop;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+
+/**
+ * Reads a Laptop, Mouse or Accessory in a single pass over the parser tokens.
+ * Accepts both the flat layout used in products.json and the {"Laptop": {...}}
+ * wrapper written for products embedded in other records.
+ * For the flat layout the type is picked from the fields present, the same way
+ * the old tree-based loader did, but without building an intermediate tree.
+ */
+public class ProductDeserializer extends StdDeserializer<Product> {
+    public ProductDeserializer() {
+        super(Product.class);
+    }
+
+    @Override
+    public Product deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        }
+        if (token == JsonToken.END_OBJECT) {
+            return null;
+        }
+        if (token != JsonToken.FIELD_NAME) {
+            return (Product) context.handleUnexpectedToken(Product.class, parser);
+        }
+
+        String firstField = parser.getCurrentName();
+        if (isTypeName(firstField)) {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                // Wrapper layout: {"Laptop": {...fields...}}
+                parser.nextToken();
+                Product product = readFields(parser, firstField);
+                // Step past the wrapper's END_OBJECT
+                parser.nextToken();
+                return product;
+            }
+            return (Product) context.handleUnexpectedToken(Product.class, parser);
+        }
+        return readFields(parser, null);
+    }
+
+    @Override
+    public Object deserializeWithType(JsonParser parser, DeserializationContext context,
+                                      TypeDeserializer typeDeserializer) throws IOException {
+        // The type is resolved here, so the wrapper from @JsonTypeInfo is handled by deserialize
+        return deserialize(parser, context);
+    }
+
+    private static boolean isTypeName(String name) {
+        return "Laptop".equals(name) || "Mouse".equals(name) || "Accessory".equals(name);
+    }
+
+    /**
+     * Reads fields until the closing END_OBJECT, which is left as the current token.
+     * @param typeName The product type, or null to infer it from the fields present
+     */
+    private Product readFields(JsonParser parser, String typeName) throws IOException {
+        ProductFields fields = new ProductFields();
+
+        for (JsonToken token = parser.currentToken(); token == JsonToken.FIELD_NAME; token = parser.nextToken()) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case "prodID" -> fields.prodID = parser.getValueAsString();
+                case "prodName" -> fields.prodName = parser.getValueAsString();
+                case "prodDesc" -> fields.prodDesc = parser.getValueAsString();
+                case "unitPrice" -> fields.unitPrice = parser.getValueAsDouble();
+                case "sellingPrice" -> fields.sellingPrice = parser.getValueAsDouble();
+                case "stock" -> fields.stock = parser.getValueAsInt();
+                case "processor" -> fields.processor = parser.getValueAsString();
+                case "graphicsCard" -> fields.graphicsCard = parser.getValueAsString();
+                case "ramGB" -> {
+                    fields.ramGB = parser.getValueAsInt();
+                    fields.hasRam = true;
+                }
+                case "storageGB" -> fields.storageGB = parser.getValueAsInt();
+                case "displaySize" -> fields.displaySize = parser.getValueAsString();
+                case "operatingSystem" -> fields.operatingSystem = parser.getValueAsString();
+                case "dpi" -> {
+                    fields.dpi = parser.getValueAsInt();
+                    fields.hasDpi = true;
+                }
+                case "numButtons" -> {
+                    fields.numButtons = parser.getValueAsInt();
+                    fields.hasButtons = true;
+                }
+                case "wireless", "isWireless" -> fields.wireless = parser.getValueAsBoolean();
+                case "connectivity" -> fields.connectivity = parser.getValueAsString();
+                case "color" -> fields.color = parser.getValueAsString();
+                case "compatibleWith" -> fields.compatibleWith = parser.getValueAsString();
+                case "type" -> fields.type = parser.getValueAsString();
+                case "material" -> fields.material = parser.getValueAsString();
+                default -> parser.skipChildren(); // Unknown field, ignore it
+            }
+        }
+
+        String productType = typeName != null ? typeName : fields.inferType();
+        return fields.build(productType);
+    }
+
+    // Holds field values until the whole object has been read and the type is known
+    private static class ProductFields {
+        private String prodID;
+        private String prodName;
+        private String prodDesc;
+        private double unitPrice;
+        private double sellingPrice;
+        private int stock;
+
+        private String processor;
+        private String graphicsCard;
+        private int ramGB;
+        private boolean hasRam;
+        private int storageGB;
+        private String displaySize;
+        private String operatingSystem;
+
+        private int dpi;
+        private boolean hasDpi;
+        private int numButtons;
+        private boolean hasButtons;
+        private boolean wireless;
+        private String connectivity;
+        private String color;
+
+        private String compatibleWith;
+        private String type;
+        private String material;
+
+        private String inferType() {
+            if (processor != null && graphicsCard != null && hasRam) {
+                return "Laptop";
+            } else if (hasDpi && hasButtons) {
+                return "Mouse";
+            }
+            // Default to accessory if can't determine
+            return "Accessory";
+        }
+
+        private Product build(String productType) {
+            switch (productType) {
+                case "Laptop":
+                    return new Laptop(prodID, prodName, prodDesc, unitPrice, sellingPrice, stock,
+                            processor, graphicsCard, ramGB, storageGB, displaySize, operatingSystem);
+                case "Mouse":
+                    return new Mouse(prodID, prodName, prodDesc, unitPrice, sellingPrice, stock,
+                            dpi, wireless, numButtons, connectivity, color);
+                default:
+                    return new Accessory(prodID, prodName, prodDesc, unitPrice, sellingPrice, stock,
+                            compatibleWith, type, material, color);
+            }
+        }
+    }
+}
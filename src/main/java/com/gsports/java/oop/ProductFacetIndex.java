@@ -0,0 +1,297 @@
+package com.gsports.java.oop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Spec filters for laptops, mice and accessories without scanning the catalog.
+ * Every product gets a document number; each facet value (e.g. RAM = 16) keeps a bitmap of
+ * the products that have it, so a filter over several facets is a bitmap intersection and
+ * the counts for a facet are intersections with the current matches. Numeric facets also
+ * keep a value-sorted array, so a range filter is two binary searches.
+ */
+public final class ProductFacetIndex {
+    public enum Facet {
+        // Laptop, Mouse or Accessory; applies to every product
+        CATEGORY("Category", Product.class, false, Product::getProductType),
+        PROCESSOR("Processor", Laptop.class, false, product -> ((Laptop) product).getProcessor()),
+        GRAPHICS_CARD("Graphics Card", Laptop.class, false, product -> ((Laptop) product).getGraphicsCard()),
+        RAM_GB("RAM (GB)", Laptop.class, true, product -> ((Laptop) product).getRamGB()),
+        STORAGE_GB("Storage (GB)", Laptop.class, true, product -> ((Laptop) product).getStorageGB()),
+        DPI("DPI", Mouse.class, true, product -> ((Mouse) product).getDpi()),
+        WIRELESS("Wireless", Mouse.class, false, product -> ((Mouse) product).isWireless() ? "Yes" : "No"),
+        CONNECTIVITY("Connectivity", Mouse.class, false, product -> ((Mouse) product).getConnectivity()),
+        ACCESSORY_TYPE("Type", Accessory.class, false, product -> ((Accessory) product).getType()),
+        COMPATIBLE_WITH("Compatible With", Accessory.class, false, product -> ((Accessory) product).getCompatibleWith());
+
+        private final String label;
+        private final Class<? extends Product> productType;
+        private final boolean numeric;
+        private final Function<Product, Object> value;
+
+        Facet(String label, Class<? extends Product> productType, boolean numeric, Function<Product, Object> value) {
+            this.label = label;
+            this.productType = productType;
+            this.numeric = numeric;
+            this.value = value;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public boolean isNumeric() {
+            return numeric;
+        }
+
+        public boolean appliesTo(Product product) {
+            return productType.isInstance(product);
+        }
+
+        /**
+         * @return The spec facets of one product type, e.g. Laptop.class
+         */
+        public static List<Facet> of(Class<? extends Product> productType) {
+            List<Facet> facets = new ArrayList<>();
+            for (Facet facet : values()) {
+                if (facet.productType == productType) {
+                    facets.add(facet);
+                }
+            }
+            return facets;
+        }
+    }
+
+    /**
+     * Inclusive bounds for a numeric facet.
+     */
+    public record Range(int min, int max) {}
+
+    // Value-sorted copy of a numeric facet, rebuilt on the next range filter after a change
+    private static final class SortedValues {
+        private int[] values = new int[0];
+        private int[] documents = new int[0];
+        private boolean stale = true;
+    }
+
+    // Indexed by document number; null once the product is removed
+    private final List<Product> products = new ArrayList<>();
+    // The values each document was indexed under, so they can be cleared without the product's current state
+    private final List<Map<Facet, String>> indexedValues = new ArrayList<>();
+    private final Map<String, Integer> documentsByProductId = new HashMap<>();
+    private final Map<Facet, Map<String, BitSet>> bitmaps = new EnumMap<>(Facet.class);
+    private final Map<Facet, SortedValues> sortedValues = new EnumMap<>(Facet.class);
+
+    public ProductFacetIndex(Collection<Product> products) {
+        for (Facet facet : Facet.values()) {
+            bitmaps.put(facet, new HashMap<>());
+            if (facet.isNumeric()) {
+                sortedValues.put(facet, new SortedValues());
+            }
+        }
+        for (Product product : products) {
+            put(product);
+        }
+    }
+
+    /**
+     * Indexes a new product, or re-indexes one whose specs changed under the same document number.
+     */
+    public synchronized void put(Product product) {
+        Integer existing = documentsByProductId.get(product.getProdID());
+        int document;
+        if (existing != null) {
+            document = existing;
+            clear(document);
+            products.set(document, product);
+        } else {
+            document = products.size();
+            products.add(product);
+            indexedValues.add(null);
+            documentsByProductId.put(product.getProdID(), document);
+        }
+        Map<Facet, String> values = new EnumMap<>(Facet.class);
+        for (Facet facet : Facet.values()) {
+            if (!facet.appliesTo(product)) {
+                continue;
+            }
+            Object value = facet.value.apply(product);
+            if (value == null) {
+                continue;
+            }
+            String key = String.valueOf(value);
+            values.put(facet, key);
+            bitmaps.get(facet).computeIfAbsent(key, k -> new BitSet()).set(document);
+            if (facet.isNumeric()) {
+                sortedValues.get(facet).stale = true;
+            }
+        }
+        indexedValues.set(document, values);
+    }
+
+    public synchronized void remove(String productId) {
+        Integer document = documentsByProductId.remove(productId);
+        if (document != null) {
+            clear(document);
+            products.set(document, null);
+            indexedValues.set(document, null);
+        }
+    }
+
+    /**
+     * Finds the products matching every facet given. Within one facet any of the listed values
+     * matches, e.g. RAM 16 or 32; facets with no values or range are not filtered on.
+     * @return A bitmap of the matching document numbers, for products() and counts()
+     */
+    public synchronized BitSet match(Map<Facet, ? extends Collection<String>> values, Map<Facet, Range> ranges) {
+        BitSet matches = null;
+        for (Map.Entry<Facet, ? extends Collection<String>> entry : values.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            BitSet anyValue = new BitSet();
+            for (String value : entry.getValue()) {
+                BitSet bitmap = bitmaps.get(entry.getKey()).get(value);
+                if (bitmap != null) {
+                    anyValue.or(bitmap);
+                }
+            }
+            matches = intersect(matches, anyValue);
+        }
+        for (Map.Entry<Facet, Range> entry : ranges.entrySet()) {
+            matches = intersect(matches, inRange(entry.getKey(), entry.getValue()));
+        }
+        if (matches == null) {
+            // No filters: every indexed product matches
+            matches = new BitSet();
+            for (int document : documentsByProductId.values()) {
+                matches.set(document);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * @return The products in the bitmap, in the order they were indexed
+     */
+    public synchronized List<Product> products(BitSet matches) {
+        List<Product> found = new ArrayList<>(matches.cardinality());
+        for (int document = matches.nextSetBit(0); document >= 0; document = matches.nextSetBit(document + 1)) {
+            Product product = products.get(document);
+            if (product != null) {
+                found.add(product);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return How many of the matching products have each value of the facet, sorted by value;
+     *         values with no matching products are left out
+     */
+    public synchronized Map<String, Integer> counts(Facet facet, BitSet matches) {
+        Map<String, Integer> counts = facet.isNumeric()
+                ? new TreeMap<>((a, b) -> Integer.compare(Integer.parseInt(a), Integer.parseInt(b)))
+                : new TreeMap<>();
+        for (Map.Entry<String, BitSet> entry : bitmaps.get(facet).entrySet()) {
+            BitSet both = (BitSet) entry.getValue().clone();
+            both.and(matches);
+            int count = both.cardinality();
+            if (count > 0) {
+                counts.put(entry.getKey(), count);
+            }
+        }
+        return counts;
+    }
+
+    public synchronized int size() {
+        return documentsByProductId.size();
+    }
+
+    private static BitSet intersect(BitSet matches, BitSet bitmap) {
+        if (matches == null) {
+            return bitmap;
+        }
+        matches.and(bitmap);
+        return matches;
+    }
+
+    private BitSet inRange(Facet facet, Range range) {
+        SortedValues sorted = sortedValues.get(facet);
+        BitSet found = new BitSet();
+        if (sorted == null) {
+            return found;
+        }
+        if (sorted.stale) {
+            sort(facet, sorted);
+        }
+        int from = firstAtLeast(sorted.values, range.min());
+        int to = range.max() == Integer.MAX_VALUE ? sorted.values.length : firstAtLeast(sorted.values, range.max() + 1);
+        for (int i = from; i < to; i++) {
+            found.set(sorted.documents[i]);
+        }
+        return found;
+    }
+
+    private void sort(Facet facet, SortedValues sorted) {
+        // Pack each value with its document number so one primitive sort orders both
+        long[] packed = new long[products.size()];
+        int size = 0;
+        for (int document = 0; document < products.size(); document++) {
+            Map<Facet, String> values = indexedValues.get(document);
+            String value = values == null ? null : values.get(facet);
+            if (value != null) {
+                packed[size++] = ((long) Integer.parseInt(value) << 32) | document;
+            }
+        }
+        Arrays.sort(packed, 0, size);
+        sorted.values = new int[size];
+        sorted.documents = new int[size];
+        for (int i = 0; i < size; i++) {
+            sorted.values[i] = (int) (packed[i] >> 32);
+            sorted.documents[i] = (int) packed[i];
+        }
+        sorted.stale = false;
+    }
+
+    private static int firstAtLeast(int[] values, int value) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (values[middle] < value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void clear(int document) {
+        Map<Facet, String> values = indexedValues.get(document);
+        if (values == null) {
+            return;
+        }
+        for (Map.Entry<Facet, String> entry : values.entrySet()) {
+            BitSet bitmap = bitmaps.get(entry.getKey()).get(entry.getValue());
+            if (bitmap != null) {
+                bitmap.clear(document);
+                if (bitmap.isEmpty()) {
+                    bitmaps.get(entry.getKey()).remove(entry.getValue());
+                }
+            }
+            if (entry.getKey().isNumeric()) {
+                sortedValues.get(entry.getKey()).stale = true;
+            }
+        }
+    }
+}
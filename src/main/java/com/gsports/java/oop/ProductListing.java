@@ -1,72 +1,174 @@
 package com.gsports.java.oop;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The catalog as the menus list it: search, spec filters and sorted views, each kept as an index.
+ * Build one per session and keep it; addProduct, updateProduct and removeProduct keep every index
+ * in step, so the sorted views are never re-sorted. Change products only through those methods.
+ */
 public class ProductListing {
-    private List<Product> products;
+    public enum SortOrder {
+        PRICE_ASCENDING,
+        PRICE_DESCENDING,
+        NAME,
+        CATEGORY
+    }
+
+    private static final Map<String, Integer> CATEGORY_ORDER = Map.of(
+        "Laptop", 1,
+        "Mouse", 2,
+        "Accessory", 3
+    );
+
+    // The sort fields of a product as they were when it was last indexed, so it can be found
+    // in the sorted views even after it has been edited; the product ID breaks ties
+    private record SortKey(double price, String name, int category, String productId) {
+        static SortKey of(Product product) {
+            return new SortKey(product.getSellingPrice(),
+                    product.getProdName() == null ? "" : product.getProdName(),
+                    CATEGORY_ORDER.getOrDefault(product.getProductType(), Integer.MAX_VALUE),
+                    product.getProdID());
+        }
+    }
 
-    public ProductListing(List<Product> products) {
-        this.products = products;
+    private static final Comparator<SortKey> BY_PRICE = Comparator.comparingDouble(SortKey::price)
+            .thenComparing(SortKey::productId);
+    private static final Comparator<SortKey> BY_NAME = Comparator.comparing(SortKey::name)
+            .thenComparing(SortKey::productId);
+    private static final Comparator<SortKey> BY_CATEGORY = Comparator.comparingInt(SortKey::category)
+            .thenComparing(SortKey::name)
+            .thenComparing(SortKey::productId);
+
+    private final List<Product> products;
+    // Kept in step with the products by addProduct, updateProduct and removeProduct
+    private final ProductSearchIndex searchIndex;
+    private final ProductFacetIndex facetIndex;
+    // Pre-sorted views, so a sorted listing is a walk instead of a copy and a sort;
+    // price descending walks the price view backwards
+    private final NavigableMap<SortKey, Product> byPrice = new TreeMap<>(BY_PRICE);
+    private final NavigableMap<SortKey, Product> byName = new TreeMap<>(BY_NAME);
+    private final NavigableMap<SortKey, Product> byCategory = new TreeMap<>(BY_CATEGORY);
+    private final Map<String, SortKey> sortKeys = new HashMap<>();
+
+    public ProductListing(Collection<Product> products) {
+        // Own copy, so the list cannot change behind the indexes
+        this.products = new ArrayList<>(products);
+        this.searchIndex = new ProductSearchIndex(this.products);
+        this.facetIndex = new ProductFacetIndex(this.products);
+        for (Product product : this.products) {
+            putSorted(product);
+        }
     }
 
     public void addProduct(Product product) {
         products.add(product);
+        searchIndex.put(product);
+        facetIndex.put(product);
+        putSorted(product);
+    }
+
+    /**
+     * Re-indexes a product after its name, description, price or specs were edited.
+     */
+    public void updateProduct(Product product) {
+        searchIndex.put(product);
+        facetIndex.put(product);
+        putSorted(product);
     }
 
     public void removeProduct(Product product) {
         products.remove(product);
+        searchIndex.remove(product.getProdID());
+        facetIndex.remove(product.getProdID());
+        removeSorted(product.getProdID());
+    }
+
+    /**
+     * @return The spec index for filtering by facets and counting their values
+     */
+    public ProductFacetIndex getFacetIndex() {
+        return facetIndex;
     }
 
+    /**
+     * @return A read-only view of the products in the order they were added
+     */
     public List<Product> getProducts() {
-        return products;
+        return Collections.unmodifiableList(products);
     }
 
     public List<Product> sortProductsByPrice(boolean ascending) {
-        List<Product> sortedProducts = new ArrayList<>(products);
-        if (ascending) {
-            sortedProducts.sort(Comparator.comparing(Product::getSellingPrice));
-            return sortedProducts;
-        } else {
-            sortedProducts.sort(Comparator.comparing(Product::getSellingPrice).reversed());
-            return sortedProducts;
-        }
+        return sortedProducts(ascending ? SortOrder.PRICE_ASCENDING : SortOrder.PRICE_DESCENDING, 0, Integer.MAX_VALUE);
     }
 
     public List<Product> sortProductsByName() {
-        List<Product> sortedProducts = new ArrayList<>(products);
-        sortedProducts.sort(Comparator.comparing(Product::getProdName));
-        return sortedProducts;
+        return sortedProducts(SortOrder.NAME, 0, Integer.MAX_VALUE);
     }
 
+    /**
+     * Sorts by category (laptops, mice, then accessories) and by name within a category.
+     */
     public List<Product> sortProductsByCategory() {
-        List<Product> sortedProducts = new ArrayList<>(products);
+        return sortedProducts(SortOrder.CATEGORY, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads one page of a sorted view without sorting or copying the rest of the catalog.
+     * @param offset Number of products to skip
+     * @param limit Maximum number of products to return
+     */
+    public List<Product> sortedProducts(SortOrder order, int offset, int limit) {
+        Collection<Product> view = switch (order) {
+            case PRICE_ASCENDING -> byPrice.values();
+            case PRICE_DESCENDING -> byPrice.descendingMap().values();
+            case NAME -> byName.values();
+            case CATEGORY -> byCategory.values();
+        };
+        List<Product> page = new ArrayList<>(Math.min(limit, sortKeys.size()));
+        Iterator<Product> iterator = view.iterator();
+        for (int skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            iterator.next();
+        }
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        return page;
+    }
 
-        sortedProducts.sort((p1, p2) -> {
-            Map<String, Integer> categoryOrder = Map.of(
-                "Laptop", 1,
-                "Mouse", 2,
-                "Accessory", 3
-            );
+    public List<Product> searchProductByName(String name) {
+        return searchIndex.searchByName(name);
+    }
 
-            Integer order1 = categoryOrder.getOrDefault(p1.getProductType(), Integer.MAX_VALUE);
-            Integer order2 = categoryOrder.getOrDefault(p2.getProductType(), Integer.MAX_VALUE);
-            return order1.compareTo(order2);
-        });
+    public List<Product> searchProducts(String text) {
+        return searchIndex.search(text);
+    }
 
-        return sortedProducts;
+    private void putSorted(Product product) {
+        removeSorted(product.getProdID());
+        SortKey key = SortKey.of(product);
+        sortKeys.put(product.getProdID(), key);
+        byPrice.put(key, product);
+        byName.put(key, product);
+        byCategory.put(key, product);
     }
 
-    public List<Product> searchProductByName(String name) {
-        List<Product> foundProducts = new ArrayList<>();
-        for (Product product : products) {
-            if (product.getProdName().toLowerCase().contains(name.toLowerCase())){
-                foundProducts.add(product);
-            }
+    private void removeSorted(String productId) {
+        SortKey key = sortKeys.remove(productId);
+        if (key != null) {
+            byPrice.remove(key);
+            byName.remove(key);
+            byCategory.remove(key);
         }
-        return foundProducts;
     }
 
     // sales report
@@ -0,0 +1,214 @@
+package com.gsports.java.oop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Substring search over product names and descriptions through an inverted index of trigrams.
+ * A query only checks the products listed under its rarest trigram instead of every product,
+ * and the lowercase text of each product is kept so no strings are built while searching.
+ * Queries shorter than a trigram check the kept text of every product.
+ *
+ * Each indexed product gets an increasing document number, so posting lists stay sorted and
+ * results come back in the order the products were indexed. A removed or re-indexed product
+ * leaves its old number behind; the index is rebuilt once those outnumber the live products.
+ */
+public final class ProductSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+    private static final int MIN_REBUILD_SIZE = 1024;
+
+    // Document numbers of the products containing a trigram, in ascending order
+    private static final class Postings {
+        private int[] documents = new int[4];
+        private int size;
+
+        void add(int document) {
+            // A document adds all its trigrams at once, so a repeated trigram is always the last entry
+            if (size > 0 && documents[size - 1] == document) {
+                return;
+            }
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = document;
+        }
+    }
+
+    // Indexed by document number; null once the product is removed or re-indexed
+    private final List<Product> products = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<String> descriptions = new ArrayList<>();
+    private final Map<String, Integer> documentsByProductId = new HashMap<>();
+    private final Map<String, Postings> nameGrams = new HashMap<>();
+    private final Map<String, Postings> descriptionGrams = new HashMap<>();
+
+    public ProductSearchIndex(Collection<Product> products) {
+        for (Product product : products) {
+            put(product);
+        }
+    }
+
+    /**
+     * Indexes a new product, or re-indexes one whose name or description changed.
+     */
+    public synchronized void put(Product product) {
+        removeDocument(product.getProdID());
+        int document = products.size();
+        String name = normalize(product.getProdName());
+        String description = normalize(product.getProdDesc());
+        products.add(product);
+        names.add(name);
+        descriptions.add(description);
+        documentsByProductId.put(product.getProdID(), document);
+        addGrams(nameGrams, name, document);
+        addGrams(descriptionGrams, description, document);
+        rebuildIfStale();
+    }
+
+    public synchronized void remove(String productId) {
+        removeDocument(productId);
+        rebuildIfStale();
+    }
+
+    /**
+     * @return The products whose name contains the query, ignoring case
+     */
+    public synchronized List<Product> searchByName(String query) {
+        String text = normalize(query);
+        List<Product> found = new ArrayList<>();
+        Postings candidates = candidates(nameGrams, text);
+        if (candidates == null) {
+            for (int document = 0; document < products.size(); document++) {
+                addIfFound(found, document, text, names);
+            }
+        } else {
+            for (int i = 0; i < candidates.size; i++) {
+                addIfFound(found, candidates.documents[i], text, names);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return The products whose name or description contains the query, ignoring case
+     */
+    public synchronized List<Product> search(String query) {
+        String text = normalize(query);
+        List<Product> found = new ArrayList<>();
+        Postings nameCandidates = candidates(nameGrams, text);
+        Postings descriptionCandidates = candidates(descriptionGrams, text);
+        if (nameCandidates == null || descriptionCandidates == null) {
+            for (int document = 0; document < products.size(); document++) {
+                addIfFoundInEither(found, document, text);
+            }
+            return found;
+        }
+        // Merge the two sorted candidate lists so each product is checked once, in index order
+        int i = 0;
+        int j = 0;
+        while (i < nameCandidates.size || j < descriptionCandidates.size) {
+            int document;
+            if (j == descriptionCandidates.size
+                    || (i < nameCandidates.size && nameCandidates.documents[i] < descriptionCandidates.documents[j])) {
+                document = nameCandidates.documents[i++];
+            } else if (i == nameCandidates.size || descriptionCandidates.documents[j] < nameCandidates.documents[i]) {
+                document = descriptionCandidates.documents[j++];
+            } else {
+                document = nameCandidates.documents[i++];
+                j++;
+            }
+            addIfFoundInEither(found, document, text);
+        }
+        return found;
+    }
+
+    public synchronized int size() {
+        return documentsByProductId.size();
+    }
+
+    /**
+     * @return The postings of the query's rarest trigram, an empty list if any trigram is missing,
+     *         or null if the query is too short to use the index
+     */
+    private static Postings candidates(Map<String, Postings> grams, String text) {
+        if (text.length() < GRAM_LENGTH) {
+            return null;
+        }
+        Postings rarest = null;
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            Postings postings = grams.get(text.substring(i, i + GRAM_LENGTH));
+            if (postings == null) {
+                return new Postings();
+            }
+            if (rarest == null || postings.size < rarest.size) {
+                rarest = postings;
+            }
+        }
+        return rarest;
+    }
+
+    // Trigrams only narrow the candidates down; the substring itself is still checked
+    private void addIfFound(List<Product> found, int document, String text, List<String> texts) {
+        String indexed = texts.get(document);
+        if (indexed != null && indexed.contains(text)) {
+            found.add(products.get(document));
+        }
+    }
+
+    private void addIfFoundInEither(List<Product> found, int document, String text) {
+        String name = names.get(document);
+        if (name != null && (name.contains(text) || descriptions.get(document).contains(text))) {
+            found.add(products.get(document));
+        }
+    }
+
+    private static void addGrams(Map<String, Postings> grams, String text, int document) {
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.computeIfAbsent(text.substring(i, i + GRAM_LENGTH), gram -> new Postings()).add(document);
+        }
+    }
+
+    // Old document numbers stay in the postings and are skipped by the null text
+    private void removeDocument(String productId) {
+        Integer document = documentsByProductId.remove(productId);
+        if (document != null) {
+            products.set(document, null);
+            names.set(document, null);
+            descriptions.set(document, null);
+        }
+    }
+
+    private void rebuildIfStale() {
+        int stale = products.size() - documentsByProductId.size();
+        if (stale > MIN_REBUILD_SIZE && stale > documentsByProductId.size()) {
+            rebuild();
+        }
+    }
+
+    private void rebuild() {
+        List<Product> live = new ArrayList<>();
+        for (Product product : products) {
+            if (product != null) {
+                live.add(product);
+            }
+        }
+        products.clear();
+        names.clear();
+        descriptions.clear();
+        documentsByProductId.clear();
+        nameGrams.clear();
+        descriptionGrams.clear();
+        for (Product product : live) {
+            put(product);
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,116 @@
+package com.gsports.java.oop;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * CRC32C checksums for individually stored records.
+ * The checksum is kept in the record itself under "_crc32c" and covers the
+ * compact JSON of the record without that field, so it does not depend on
+ * how the file was indented. Records written before checksums were added
+ * have no such field and are accepted as they are.
+ */
+public class RecordChecksum {
+    public static final String FIELD = "_crc32c";
+
+    public enum Result {
+        VALID,
+        MISSING,
+        MISMATCH
+    }
+
+    private final ObjectMapper mapper;
+    private final ObjectWriter canonicalWriter;
+
+    public RecordChecksum(ObjectMapper mapper) {
+        this.mapper = mapper;
+        this.canonicalWriter = mapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    /**
+     * Converts a record to a tree and adds its checksum.
+     */
+    public ObjectNode seal(Object record) throws IOException {
+        ObjectNode node = mapper.valueToTree(record);
+        node.remove(FIELD);
+        node.put(FIELD, compute(node));
+        return node;
+    }
+
+    /**
+     * Checks and removes the stored checksum, leaving the record ready to bind.
+     */
+    public Result verify(JsonNode node) throws IOException {
+        if (!node.isObject()) {
+            return Result.MISSING;
+        }
+        JsonNode stored = ((ObjectNode) node).remove(FIELD);
+        if (stored == null) {
+            return Result.MISSING;
+        }
+        return compute(node).equals(stored.asText()) ? Result.VALID : Result.MISMATCH;
+    }
+
+    private String compute(JsonNode node) throws IOException {
+        CRC32C crc = new CRC32C();
+        crc.update(canonicalWriter.writeValueAsBytes(node));
+        return String.format("%08x", crc.getValue());
+    }
+
+    /**
+     * Wraps a map of records so it is written as {"id": record, ...} with every record sealed.
+     * Only one record is held as a tree at a time.
+     */
+    public JsonSerializable sealAll(Map<String, ?> records) {
+        return new JsonSerializable.Base() {
+            @Override
+            public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+                gen.writeStartObject();
+                for (Map.Entry<String, ?> entry : records.entrySet()) {
+                    gen.writeFieldName(entry.getKey());
+                    gen.writeTree(seal(entry.getValue()));
+                }
+                gen.writeEndObject();
+            }
+
+            @Override
+            public void serializeWithType(JsonGenerator gen, SerializerProvider serializers,
+                                          TypeSerializer typeSer) throws IOException {
+                serialize(gen, serializers);
+            }
+        };
+    }
+
+    /**
+     * Appends a rejected record to <file>.quarantine as one JSON line so it can be inspected
+     * or repaired by hand, instead of being lost at the next save.
+     */
+    public synchronized void quarantine(File dataFile, String key, String reason, JsonNode record) {
+        File quarantineFile = new File(dataFile.getPath() + ".quarantine");
+        ObjectNode entry = mapper.createObjectNode();
+        entry.put("key", key);
+        entry.put("reason", reason);
+        entry.put("quarantinedAt", LocalDateTime.now().toString());
+        entry.set("record", record);
+        try (FileOutputStream out = new FileOutputStream(quarantineFile, true)) {
+            out.write(canonicalWriter.writeValueAsBytes(entry));
+            out.write('\n');
+        } catch (IOException e) {
+            System.out.println("Error writing " + quarantineFile.getName() + ": " + e.getMessage());
+        }
+    }
+}
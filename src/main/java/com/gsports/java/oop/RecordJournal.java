@@ -0,0 +1,262 @@
+package com.gsports.java.oop;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Append-only journal of keyed record mutations.
+ * Every mutation is written as one JSON line, so recording a change costs
+ * the size of that record instead of a rewrite of the whole data file.
+ * Replaying the journal on top of the last snapshot rebuilds the current state.
+ *
+ * Compaction folds the journal into a new snapshot without blocking appends:
+ * the journal is first renamed to <file>.compacting and new entries go to a fresh
+ * journal, then the renamed entries are applied to the snapshot, which is written
+ * and swapped in before the renamed file is deleted.
+ */
+public class RecordJournal<T> {
+    public enum Operation {
+        PUT,
+        REMOVE
+    }
+
+    /**
+     * Reads the current snapshot of the store.
+     */
+    @FunctionalInterface
+    public interface SnapshotReader<T> {
+        Map<String, T> read() throws IOException;
+    }
+
+    /**
+     * Replaces the snapshot of the store with the given records.
+     */
+    @FunctionalInterface
+    public interface SnapshotWriter<T> {
+        void write(Map<String, T> records) throws IOException;
+    }
+
+    /**
+     * Writes the records changed by folded journal entries into the snapshot, leaving the rest of it as it is.
+     */
+    @FunctionalInterface
+    public interface ChangeWriter<T> {
+        /**
+         * @param changed The latest state of each record the entries put
+         * @param removed IDs the entries removed and did not put again
+         */
+        void write(Map<String, T> changed, Set<String> removed) throws IOException;
+    }
+
+    private final File file;
+    private final File compactingFile;
+    // Held while the snapshot is replaced, so a full save and a compaction never interleave
+    private final Object snapshotLock = new Object();
+    private final FileCommitter committer;
+    private final Class<T> recordType;
+    private final ObjectMapper mapper;
+    private final ObjectWriter lineWriter;
+    private final RecordChecksum checksum;
+
+    /**
+     * @param durability Whether each appended entry is forced to disk before the call returns
+     */
+    public RecordJournal(String filePath, Class<T> recordType, ObjectMapper mapper,
+                         FileCommitter.Durability durability) {
+        this.file = new File(filePath);
+        this.compactingFile = new File(filePath + ".compacting");
+        this.committer = new FileCommitter(filePath, durability);
+        this.recordType = recordType;
+        this.mapper = mapper;
+        // One entry per line, so never indent
+        this.lineWriter = mapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        this.checksum = new RecordChecksum(mapper);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return Bytes not yet folded into the snapshot
+     */
+    public synchronized long size() {
+        return file.length() + compactingFile.length();
+    }
+
+    public synchronized void appendPut(String id, T record) throws IOException {
+        ObjectNode entry = mapper.createObjectNode();
+        entry.put("op", Operation.PUT.name());
+        entry.put("id", id);
+        entry.set("record", mapper.valueToTree(record));
+        append(entry);
+    }
+
+    public synchronized void appendRemove(String id) throws IOException {
+        ObjectNode entry = mapper.createObjectNode();
+        entry.put("op", Operation.REMOVE.name());
+        entry.put("id", id);
+        append(entry);
+    }
+
+    private void append(ObjectNode entry) throws IOException {
+        // Each line carries its own CRC32C, so a damaged entry can be told apart from a valid one
+        byte[] line = lineWriter.writeValueAsBytes(checksum.seal(entry));
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(line);
+            out.write('\n');
+            if (committer.syncDue()) {
+                out.getChannel().force(false);
+            }
+        }
+    }
+
+    /**
+     * Applies every journal entry, oldest first, on top of the given snapshot.
+     * Entries of an unfinished compaction are applied before the current journal.
+     * A line that cannot be parsed (e.g. a torn write at the tail) is skipped,
+     * and a line whose checksum does not match is moved to the quarantine file.
+     * @param records The snapshot to update in place
+     * @return The number of entries applied
+     */
+    public synchronized int replay(Map<String, T> records) throws IOException {
+        return replay(compactingFile, records, null) + replay(file, records, null);
+    }
+
+    // Removed IDs are also collected when a set is given
+    private int replay(File file, Map<String, T> records, Set<String> removed) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+
+        int applied = 0;
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    JsonNode entry = mapper.readTree(line);
+                    if (checksum.verify(entry) == RecordChecksum.Result.MISMATCH) {
+                        System.out.println("Quarantined journal entry " + file.getName() + ":" + lineNumber
+                                + " (checksum mismatch)");
+                        checksum.quarantine(file, String.valueOf(lineNumber), "checksum mismatch", entry);
+                        continue;
+                    }
+                    String id = entry.get("id").asText();
+                    Operation op = Operation.valueOf(entry.get("op").asText());
+                    if (op == Operation.PUT) {
+                        records.put(id, mapper.treeToValue(entry.get("record"), recordType));
+                        if (removed != null) {
+                            removed.remove(id);
+                        }
+                    } else {
+                        records.remove(id);
+                        if (removed != null) {
+                            removed.add(id);
+                        }
+                    }
+                    applied++;
+                } catch (Exception e) {
+                    System.out.println("Skipping unreadable journal entry " + file.getName() + ":" + lineNumber
+                            + " (" + e.getMessage() + ")");
+                }
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Discards all entries. Call only after a snapshot containing them has been written.
+     */
+    public synchronized void truncate() throws IOException {
+        if (file.exists()) {
+            committer.clear();
+        }
+        Files.deleteIfExists(compactingFile.toPath());
+    }
+
+    /**
+     * Writes a full snapshot of the current state and empties the journal.
+     * Waits for a running compaction, which would otherwise swap in an older snapshot afterwards.
+     * Appends wait until the journal is emptied, so none lands between the snapshot and the truncate and is lost.
+     */
+    public void writeSnapshot(Map<String, T> records, SnapshotWriter<T> writer) throws IOException {
+        synchronized (snapshotLock) {
+            // Same lock order as compact(): snapshotLock, then the journal
+            synchronized (this) {
+                writer.write(records);
+                truncate();
+            }
+        }
+    }
+
+    /**
+     * Folds the journal into a new snapshot. Appends carry on into a fresh journal meanwhile,
+     * and a crash at any point leaves a snapshot and journal that replay to the same state.
+     * @return false if there was nothing to fold
+     */
+    public boolean compact(SnapshotReader<T> reader, SnapshotWriter<T> writer) throws IOException {
+        synchronized (snapshotLock) {
+            if (!rotate()) {
+                return false;
+            }
+            Map<String, T> records = reader.read();
+            replay(compactingFile, records, null);
+            writer.write(records);
+            // Replaying the folded entries again would give the same state, so a crash before this is harmless
+            Files.deleteIfExists(compactingFile.toPath());
+            return true;
+        }
+    }
+
+    /**
+     * Folds the journal into the snapshot without reading the whole snapshot first;
+     * the writer is given only the records the folded entries changed.
+     * For snapshots split into parts, e.g. orders by month, where only the touched parts need rewriting.
+     * @return false if there was nothing to fold
+     */
+    public boolean compact(ChangeWriter<T> writer) throws IOException {
+        synchronized (snapshotLock) {
+            if (!rotate()) {
+                return false;
+            }
+            Map<String, T> changed = new LinkedHashMap<>();
+            Set<String> removed = new HashSet<>();
+            replay(compactingFile, changed, removed);
+            writer.write(changed, removed);
+            Files.deleteIfExists(compactingFile.toPath());
+            return true;
+        }
+    }
+
+    // Moves the journal aside so new appends start a fresh file; an unfinished compaction is picked up as it is
+    private synchronized boolean rotate() throws IOException {
+        if (compactingFile.exists()) {
+            return true;
+        }
+        if (!file.exists() || file.length() == 0) {
+            return false;
+        }
+        Files.move(file.toPath(), compactingFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+}
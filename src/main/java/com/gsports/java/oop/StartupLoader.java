@@ -0,0 +1,108 @@
+package com.gsports.java.oop;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+
+/**
+ * Loads all data stores at startup. The stores do not depend on each other,
+ * so each one is read in its own virtual thread and startup takes about as long
+ * as the slowest store instead of the sum of all of them.
+ * Uses StructuredTaskScope, a preview API; the project builds and runs with --enable-preview.
+ */
+public class StartupLoader {
+    private static volatile DataSnapshot current;
+
+    // A loaded store with the time it took
+    private record Timed<T>(T value, long nanos) {
+        long millis() {
+            return nanos / 1_000_000;
+        }
+    }
+
+    /**
+     * @return The snapshot published by the last load, or null if nothing has been loaded yet
+     */
+    public static DataSnapshot current() {
+        return current;
+    }
+
+    /**
+     * Loads customers, admins, orders, payments, products and carts concurrently, links orders and carts
+     * to the loaded customers, products and payments, and publishes the result.
+     * If any store fails to load, the others are cancelled and an IllegalStateException is thrown.
+     */
+    public static DataSnapshot load() {
+        long start = System.nanoTime();
+        Timed<List<User>> customers;
+        Timed<List<Admin>> admins;
+        Timed<List<Order>> orders;
+        Timed<List<Payment>> payments;
+        Timed<Map<String, Product>> products;
+        Timed<Map<String, CartRecord>> carts;
+
+        try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+            Subtask<Timed<List<User>>> customersTask = scope.fork(() -> timed(JsonDataHandler::getCustomersList));
+            Subtask<Timed<List<Admin>>> adminsTask = scope.fork(() -> timed(JsonDataHandler::getAdminsList));
+            Subtask<Timed<List<Order>>> ordersTask = scope.fork(() -> timed(JsonDataHandler::getOrdersList));
+            Subtask<Timed<List<Payment>>> paymentsTask = scope.fork(() -> timed(JsonDataHandler::getPaymentsList));
+            Subtask<Timed<Map<String, Product>>> productsTask = scope.fork(() -> timed(JsonDataHandler::loadProducts));
+            Subtask<Timed<Map<String, CartRecord>>> cartsTask = scope.fork(() -> timed(JsonDataHandler::loadCarts));
+
+            scope.join().throwIfFailed(e -> new IllegalStateException("Error loading data: " + e.getMessage(), e));
+
+            customers = customersTask.get();
+            admins = adminsTask.get();
+            orders = ordersTask.get();
+            payments = paymentsTask.get();
+            products = productsTask.get();
+            carts = cartsTask.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while loading data", e);
+        }
+
+        // Orders and carts store customer and product IDs; link them to the loaded objects
+        JsonDataHandler.attachCarts(customers.value(), carts.value());
+        JsonDataHandler.resolveOrders(orders.value(), customers.value(), products.value());
+        JsonDataHandler.resolveCarts(customers.value(), products.value());
+        JsonDataHandler.resolvePayments(orders.value(), payments.value());
+
+        // Wishlists store product IDs and show the loaded products
+        Wishlist.setCatalog(products.value()::get);
+
+        Map<String, Long> loadTimes = new LinkedHashMap<>();
+        loadTimes.put("customers", customers.millis());
+        loadTimes.put("admins", admins.millis());
+        loadTimes.put("orders", orders.millis());
+        loadTimes.put("payments", payments.millis());
+        loadTimes.put("products", products.millis());
+        loadTimes.put("carts", carts.millis());
+
+        DataSnapshot snapshot = new DataSnapshot(customers.value(), admins.value(), orders.value(),
+                payments.value(), products.value(), loadTimes, (System.nanoTime() - start) / 1_000_000);
+        current = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * @return The products from the published snapshot, or a fresh load if startup has not run
+     */
+    public static List<Product> getProducts() {
+        DataSnapshot snapshot = current;
+        if (snapshot == null) {
+            return JsonDataHandler.getProductsList();
+        }
+        return new ArrayList<>(snapshot.getProducts().values());
+    }
+
+    private static <T> Timed<T> timed(Callable<T> loader) throws Exception {
+        long start = System.nanoTime();
+        T value = loader.call();
+        return new Timed<>(value, System.nanoTime() - start);
+    }
+}
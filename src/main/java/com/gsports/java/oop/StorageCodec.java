@@ -0,0 +1,57 @@
+package com.gsports.java.oop;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * On-disk format of the data files. Both formats carry the same records and
+ * go through the same Jackson streaming and binding code; only the factory
+ * that turns tokens into bytes differs.
+ * Select with -Dgsports.storageFormat=json|smile (JSON by default).
+ */
+public enum StorageCodec {
+    // Human-readable; pretty-printed unless compact output is enabled
+    JSON("json", JsonFactory::new),
+    // Binary JSON: no whitespace, back-references for repeated field names and short strings
+    SMILE("smile", SmileFactory::new);
+
+    private final String extension;
+    private final Supplier<JsonFactory> factorySupplier;
+
+    StorageCodec(String extension, Supplier<JsonFactory> factorySupplier) {
+        this.extension = extension;
+        this.factorySupplier = factorySupplier;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * @param baseName File path without extension, e.g. "customers"
+     * @return The path for this format, e.g. "customers.smile"
+     */
+    public String fileName(String baseName) {
+        return baseName + "." + extension;
+    }
+
+    public JsonFactory createFactory() {
+        return factorySupplier.get();
+    }
+
+    public static StorageCodec fromProperty(String property, StorageCodec defaultValue) {
+        String value = System.getProperty(property);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unknown storage format '" + value + "' for " + property + ", using " + defaultValue);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.gsports.java.oop;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * One-shot conversion of the data files between storage formats.
+ * Run from the data directory with:
+ *   mvn compile exec:java -Dexec.mainClass=com.gsports.java.oop.StorageConverter -Dexec.args="json smile"
+ * then start the application with -Dgsports.storageFormat=smile.
+ */
+public class StorageConverter {
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: StorageConverter <from> <to>   (formats: json, smile)");
+            return;
+        }
+        try {
+            StorageCodec from = StorageCodec.valueOf(args[0].toUpperCase(Locale.ROOT));
+            StorageCodec to = StorageCodec.valueOf(args[1].toUpperCase(Locale.ROOT));
+            if (from == to) {
+                System.out.println("Source and target formats are the same.");
+                return;
+            }
+            JsonDataHandler.convertStorage(from, to);
+            System.out.println("Conversion complete. Start with -Dgsports.storageFormat=" + to.getExtension());
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unknown storage format. Expected json or smile.");
+        } catch (IOException e) {
+            System.out.println("Error converting data: " + e.getMessage());
+        }
+    }
+}
@@ -1,13 +1,12 @@
 package com.gsports.java.oop;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.ObjectCodec;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -21,7 +20,8 @@ public class UserDeserializer extends StdDeserializer<User> {
     @Override
     public User deserialize(JsonParser parser, DeserializationContext context) throws IOException, JsonProcessingException {
         JsonNode node = parser.getCodec().readTree(parser);
-        ObjectMapper mapper = (ObjectMapper) parser.getCodec();
+        // The codec is an ObjectReader rather than the mapper when binding from a tree
+        ObjectCodec mapper = parser.getCodec();
 
         String userID = node.has("userID") ? node.get("userID").asText() : null;
         String username = node.has("username") ? node.get("username").asText() : null;
@@ -43,30 +43,26 @@ public class UserDeserializer extends StdDeserializer<User> {
             customer.setAddress(address);
             customer.setPhoneNum(phoneNum);
             
-            // Deserialize cart if present
-            if (node.has("cart")) {
-                Cart cart = mapper.treeToValue(node.get("cart"), Cart.class);
-                customer.setCart(cart);
-            }
-            
-            // Deserialize wishlist if present
-            if (node.has("wishlist")) {
-                Wishlist wishlist = mapper.treeToValue(node.get("wishlist"), Wishlist.class);
-                customer.setWishlist(wishlist);
-            }
+            // Carts and wishlists are kept in the cart store; older files still embed them here
+            customer.setCart(node.has("cart") ? mapper.treeToValue(node.get("cart"), Cart.class) : new Cart());
+            customer.setWishlist(node.has("wishlist")
+                    ? mapper.treeToValue(node.get("wishlist"), Wishlist.class) : new Wishlist());
             
-            // Deserialize order history if present
-            if (node.has("orderHistory") && node.get("orderHistory").isArray()) {
-                ArrayNode ordersNode = (ArrayNode) node.get("orderHistory");
-                List<Order> orders = new ArrayList<>();
-                
-                for (JsonNode orderNode : ordersNode) {
-                    Order order = mapper.treeToValue(orderNode, Order.class);
-                    orders.add(order);
+            // Order history is stored as order IDs and resolved from the order store when first read
+            List<String> orderIds = new ArrayList<>();
+            if (node.has("orderIds") && node.get("orderIds").isArray()) {
+                for (JsonNode orderId : node.get("orderIds")) {
+                    orderIds.add(orderId.asText());
+                }
+            } else if (node.has("orderHistory") && node.get("orderHistory").isArray()) {
+                // Older files embedded whole orders; only their IDs are kept
+                for (JsonNode orderNode : node.get("orderHistory")) {
+                    if (orderNode.has("orderId")) {
+                        orderIds.add(orderNode.get("orderId").asText());
+                    }
                 }
-                
-                customer.setOrderHistory(orders);
             }
+            customer.setOrderIds(orderIds);
             
             return customer;
         }
@@ -9,12 +9,18 @@ import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 import java.util.UUID;
 
 import com.gsports.java.oop.Order.OrderStatus;
 import com.gsports.java.oop.Payment.PaymentMethod;
+import com.gsports.java.oop.PersistenceManager.Store;
+import com.gsports.java.oop.ProductFacetIndex.Facet;
 
 public class UserMenu {
     private Scanner scanner;
@@ -22,16 +28,78 @@ public class UserMenu {
     private List<Admin> admins;
     private List<Order> orders;
     private List<Payment> payments;
+    private final PersistenceManager persistence;
+    private final LogCompactor compactor;
+    private final EmailIndex emailIndex;
+    private final OrderIndex orderIndex;
+    private final WishlistIndex wishlistIndex;
+    // The loaded products that wishlists resolve from; kept in step with admin product changes
+    private final Map<String, Product> catalog;
+    // Search, spec filters and sorted views over the catalog, built once; admin product changes go through it
+    private final ProductListing productListing;
     public static User currentUser = null;
     // Add this as a static instance variable
     private static UserMenu instance;
 
     public UserMenu() {
         this.scanner = MenuUtils.getScanner();
-        this.customers = JsonDataHandler.getCustomersList();
-        this.admins = JsonDataHandler.getAdminsList();
-        this.orders = JsonDataHandler.getOrdersList();
-        this.payments = JsonDataHandler.getPaymentsList();
+        // All stores are loaded in parallel and already linked to each other
+        DataSnapshot data = StartupLoader.load();
+        System.out.println(data.describeLoadTimes());
+        this.customers = data.getCustomers();
+        this.admins = data.getAdmins();
+        this.orders = data.getOrders();
+        this.payments = data.getPayments();
+        this.emailIndex = new EmailIndex(customers, admins);
+        this.orderIndex = new OrderIndex(orders);
+        this.wishlistIndex = new WishlistIndex(customers);
+        this.catalog = data.getProducts();
+        this.productListing = new ProductListing(catalog.values());
+        // The assistant answers from the same listing, so it sees admin product changes too
+        GeminiService.setProductListing(productListing);
+        // Status changes move orders between the index's status sets as they happen
+        Order.setStatusListener(orderIndex);
+        // Order histories resolve through the index, which also holds orders placed since startup
+        OrderHistory.setResolver(orderId -> {
+            Order order = orderIndex.find(orderId);
+            return order != null ? order : JsonDataHandler.findOrder(orderId);
+        });
+
+        // Changes are marked dirty and written in the background instead of saving after every action
+        this.persistence = new PersistenceManager();
+        // Only the changed customers, orders and payments are appended to their journals.
+        // Each is copied when marked, so the flusher never reads the lists or objects the menus are changing.
+        // A failed append is thrown to the flusher, which keeps the copies and retries them on the next flush
+        persistence.<User>registerStore(Store.CUSTOMERS, customer -> JsonDataHandler.copyRecord(customer, User.class),
+                changed -> {
+                    for (User customer : changed.values()) {
+                        JsonDataHandler.appendCustomer(customer);
+                    }
+                });
+        // Carts and wishlists are written per customer without touching the profiles
+        persistence.<CartRecord>registerStore(Store.CARTS, cart -> JsonDataHandler.copyRecord(cart, CartRecord.class),
+                changed -> {
+                    for (Map.Entry<String, CartRecord> entry : changed.entrySet()) {
+                        JsonDataHandler.appendCart(entry.getKey(), entry.getValue());
+                    }
+                });
+        persistence.<Payment>registerStore(Store.PAYMENTS, payment -> JsonDataHandler.copyRecord(payment, Payment.class),
+                changed -> {
+                    for (Payment payment : changed.values()) {
+                        JsonDataHandler.appendPayment(payment);
+                    }
+                });
+        persistence.<Order>registerStore(Store.ORDERS, order -> JsonDataHandler.copyRecord(order, Order.class),
+                changed -> {
+                    for (Order order : changed.values()) {
+                        JsonDataHandler.appendOrder(order);
+                    }
+                });
+        persistence.start();
+
+        // Journals are folded into the data files in the background
+        this.compactor = new LogCompactor();
+        JsonDataHandler.registerCompactions(compactor);
         instance = this; // Set the instance in the parameterized constructor too
     }
 
@@ -69,10 +137,7 @@ public class UserMenu {
                     chatbotMenu();
                     break;
                 case 4:
-                    JsonDataHandler.saveCustomersList(customers);
-                    JsonDataHandler.saveAdminsList(admins);
-                    JsonDataHandler.saveOrdersList(orders);
-                    JsonDataHandler.savePaymentsList(payments);
+                    closeStorage();
                     System.out.println("Exiting...");
                     MenuUtils.closeScanner();
                     break;
@@ -81,6 +146,15 @@ public class UserMenu {
         System.out.println("Thank you for using GSports Retail System!");
     }
 
+    // Saves pending changes, folds the journals into the data files and writes the record stores
+    // back before the program exits, so the next start has no journal to replay
+    private void closeStorage() {
+        persistence.close();
+        compactor.close();
+        compactor.compactAll();
+        JsonDataHandler.forceRecordStores();
+    }
+
     private void registerCustomer() {
         System.out.println("\n=== Customer Registration ===");
 
@@ -104,15 +178,8 @@ public class UserMenu {
                 continue;
             }
             
-            // Check if email already exists in customers map
-            boolean emailExists = customers.stream()
-                    .anyMatch(user -> currentEmail.equalsIgnoreCase(user.getEmail()));
-                    
-            // Also check in admins map
-            boolean adminEmailExists = admins.stream()
-                .anyMatch(admin -> currentEmail.equalsIgnoreCase(admin.getEmail()));
-                    
-            if (emailExists || adminEmailExists) {
+            // Customers and admins share one email index
+            if (emailIndex.contains(currentEmail)) {
                 System.out.println("Email already registered. Please use a different email.");
             } else {
                 validEmail = true;
@@ -143,17 +210,10 @@ public class UserMenu {
             // Create a new customer with a generated ID
             Customer customer = new Customer(customerName, email, password, address, phoneNum);
 
-            // Reload the latest customers data to avoid overwriting
-            List<User> latestCustomers = JsonDataHandler.getCustomersList();
-
-            // Add to the latest customers list
-            latestCustomers.add(customer);
-
-            // Save to JSON
-            JsonDataHandler.saveCustomersList(latestCustomers);
-
-            // Update our in-memory map
-            customers = latestCustomers;
+            // The in-memory list is the current state; the file may not have caught up yet
+            customers.add(customer);
+            emailIndex.add(customer);
+            markCustomerDirty(customer);
 
             System.out.println("Registration successful! Your customer ID is " + customer.getUserID());
         } catch (IllegalArgumentException e) {
@@ -273,18 +333,8 @@ public class UserMenu {
         System.out.print("Enter Password: ");
         String password = MenuUtils.maskPassword(scanner);
 
-        User matchingUser = customers.stream()
-                .filter(user -> email.equals(user.getEmail()))
-                .findFirst()
-                .orElse(null);
-
-        // Check if the user is an admin
-        if (matchingUser == null) {
-            matchingUser = admins.stream()
-                    .filter(user -> email.equals(user.getEmail()))
-                    .findFirst()
-                    .orElse(null);
-        }
+        // Finds customers and admins alike, ignoring case
+        User matchingUser = emailIndex.find(email);
 
         if (matchingUser != null) {
             if (password.equals(matchingUser.getPassword())) {
@@ -350,10 +400,7 @@ public class UserMenu {
                     break;
 
                 case 6:
-                    JsonDataHandler.saveCustomersList(customers);
-                    JsonDataHandler.saveAdminsList(admins);
-                    JsonDataHandler.saveOrdersList(orders);
-                    JsonDataHandler.savePaymentsList(payments);
+                    closeStorage();
                     System.out.println("Exiting...");
                     MenuUtils.closeScanner();
                     System.exit(0); // Terminate the program
@@ -421,9 +468,10 @@ public class UserMenu {
                 return; // Back to admin menu
         }
         
-        List<Product> products = JsonDataHandler.getProductsList();
+        // The session's listing, so the report does not reread the product file
+        List<Product> products = productListing.getProducts();
         // Generate the report
-        String report = admin.generateSalesReport(orders, products, startDate, endDate);
+        String report = admin.generateSalesReport(orderIndex, products, startDate, endDate);
         
         // Display the report
         System.out.println(report);
@@ -500,15 +548,7 @@ public class UserMenu {
                     System.out.println("Customers sorted by namsdfdsfsd.");
                 }
                 case 4 -> {
-                    regularCustomers.sort((c1, c2) -> {
-                        long c1Orders = orders.stream()
-                                .filter(order -> order.getCustomer().getUserID().equals(c1.getUserID()))
-                                .count();
-                        long c2Orders = orders.stream()
-                                .filter(order -> order.getCustomer().getUserID().equals(c2.getUserID()))
-                                .count();
-                        return Long.compare(c2Orders, c1Orders); // Descending order
-                    });
+                    sortByMostOrders(regularCustomers);
                     System.out.println("Customers sorted by most orders.");
                 }
                 case 5 -> {
@@ -518,6 +558,28 @@ public class UserMenu {
         }
     }
 
+    /**
+     * Sorts customers by their order count from the order index, most orders first.
+     * Each count is read once and packed with the customer's position, so the sort
+     * compares primitives instead of counting orders on every comparison.
+     */
+    private void sortByMostOrders(List<User> regularCustomers) {
+        long[] keys = new long[regularCustomers.size()];
+        for (int i = 0; i < keys.length; i++) {
+            int orderCount = orderIndex.statsOf(regularCustomers.get(i).getUserID()).orderCount();
+            // Negated so the ascending sort puts the most orders first; ties keep their current order
+            keys[i] = ((long) -orderCount << 32) | i;
+        }
+        Arrays.sort(keys);
+        List<User> sorted = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            sorted.add(regularCustomers.get((int) key));
+        }
+        for (int i = 0; i < sorted.size(); i++) {
+            regularCustomers.set(i, sorted.get(i));
+        }
+    }
+
     // Extract display code to a separate method
     private void displayCustomersTable(List<User> regularCustomers) {
         System.out.println("\n┌──────────────────────────────────────────────────────────────────────────────┐");
@@ -530,9 +592,7 @@ public class UserMenu {
             Customer customer = (Customer) regularCustomers.get(i);
             
             // Count orders for this customer
-            long orderCount = orders.stream()
-                    .filter(order -> order.getCustomer().getUserID().equals(customer.getUserID()))
-                    .count();
+            long orderCount = orderIndex.statsOf(customer.getUserID()).orderCount();
             
             String formattedId = String.format("%-12s", customer.getUserID());
             String formattedName = String.format("%-23s", 
@@ -561,16 +621,12 @@ public class UserMenu {
         }
         Customer customer = (Customer) customers.get(customerIndex);
         
-        // Calculate total spent
-        double totalSpent = orders.stream()
-                .filter(order -> order.getCustomer().getUserID().equals(customer.getUserID()))
-                .mapToDouble(Order::getTotalAmount)
-                .sum();
-        
-        // Count total orders
-        long orderCount = orders.stream()
-                .filter(order -> order.getCustomer().getUserID().equals(customer.getUserID()))
-                .count();
+        // Order totals are kept by the order index as orders are placed and cancelled
+        CustomerStats stats = orderIndex.statsOf(customer.getUserID());
+        double totalSpent = stats.lifetimeSpend();
+        long orderCount = stats.orderCount();
+        String lastOrder = stats.lastOrderDate() != null
+                ? stats.lastOrderDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")) : "-";
         
         // Display detailed information about the customer
         System.out.println("\n┌─────────────────────────────────────────────────────────────────────────────┐");
@@ -583,6 +639,7 @@ public class UserMenu {
         System.out.println("│ Address: " + String.format("%-66s", customer.getAddress()) + " │");
         System.out.println("│ Total Orders: " + String.format("%-62d", orderCount) + " │");
         System.out.println("│ Total Spent: RM" + String.format("%-61.2f", totalSpent) + " │");
+        System.out.println("│ Last Order: " + String.format("%-64s", lastOrder) + " │");
         
         // Cart items if any
         if (customer.getCart() != null && !customer.getCart().getItems(
@@ -594,9 +651,9 @@ public class UserMenu {
             
             List<CartItem> cartItems = customer.getCart().getItems();
             for (CartItem item : cartItems) {
-                System.out.println("│ • " + String.format("%-30s", item.getProduct().getProdName()) + 
+                System.out.println("│ • " + String.format("%-30s", item.getProductName()) + 
                         " | Qty: " + String.format("%-3d", item.getQuantity()) + 
-                        " | Price: RM" + String.format("%-8.2f", item.getProduct().getSellingPrice()) + 
+                        " | Price: RM" + String.format("%-8.2f", item.getPrice()) + 
                         " | Subtotal: RM" + String.format("%-8.2f", item.getSubtotal()) + " │");
             }
             
@@ -628,8 +685,7 @@ public class UserMenu {
         
         Customer customer = (Customer) customers.get(customerIndex);
         
-        List<Order> customerOrders = orders.stream()
-                .filter(order -> order.getCustomer().getUserID().equals(customer.getUserID()))
+        List<Order> customerOrders = orderIndex.ordersOf(customer.getUserID()).stream()
                 .sorted((o1, o2) -> o2.getOrderDate().compareTo(o1.getOrderDate())) // Newest first
                 .collect(java.util.stream.Collectors.toList());
         
@@ -699,7 +755,7 @@ public class UserMenu {
                 // Find customer name
                 String customerName = "Unknown";
                 for (User user : customers) {
-                    if (user.getUserID().equals(order.getCustomer().getUserID())) {
+                    if (user.getUserID().equals(order.getCustomerId())) {
                         customerName = user.getUsername();
                         if (customerName.length() > 9) {
                             customerName = customerName.substring(0, 7) + "..";
@@ -743,14 +799,13 @@ public class UserMenu {
                     continue;
                 }
                 case 4 -> {
-                    allOrders = JsonDataHandler.getOrdersList();
-                    allOrders.sort((o1, o2) -> o2.getOrderDate().compareTo(o1.getOrderDate()));
+                    // The order index is already kept in date order
+                    allOrders = orderIndex.ordersByDate(true);
                     System.out.println("Orders sorted by date (newest first).");
                     continue;
                 }
                 case 5 -> {
-                    allOrders = JsonDataHandler.getOrdersList();
-                    allOrders.sort((o1, o2) -> o1.getOrderDate().compareTo(o2.getOrderDate()));
+                    allOrders = orderIndex.ordersByDate(false);
                     System.out.println("Orders sorted by date (oldest first).");
                     continue;
                 }
@@ -778,7 +833,7 @@ public class UserMenu {
         int choice = MenuUtils.validateDigit(1, 6);
 
         if (choice == 6) {
-            return JsonDataHandler.getOrdersList(); // Return all orders
+            return new ArrayList<>(orders); // Return all orders from memory
         }
 
         OrderStatus status;
@@ -791,11 +846,10 @@ public class UserMenu {
             default -> status = OrderStatus.PENDING;
         }
 
-        List<Order> filteredOrders = orders.stream()
-                .filter(order -> order.getStatus().equals(status))
-                .collect(java.util.stream.Collectors.toList());
+        // Read from the status index instead of scanning every order
+        List<Order> filteredOrders = new ArrayList<>(orderIndex.ordersWithStatus(status));
 
-        System.out.println("Showing orders with status: " + status.toString());
+        System.out.println("Showing " + filteredOrders.size() + " orders with status: " + status.toString());
         return filteredOrders;
     }
 
@@ -812,7 +866,7 @@ public class UserMenu {
         // Find customer name
         String customerName = "Unknown";
         for (User user : customers) {
-            if (user.getUserID().equals(selectedOrder.getCustomer().getUserID())) {
+            if (user.getUserID().equals(selectedOrder.getCustomerId())) {
                 customerName = user.getUsername();
                 break;
             }
@@ -824,17 +878,16 @@ public class UserMenu {
         System.out.println("├─────────────────────────────────────────────────────────────────────────────┤");
         System.out.println("│ Order ID: " + String.format("%-65s", selectedOrder.getOrderId()) + " │");
         System.out.println("│ Customer: " + String.format("%-65s", customerName) + " │");
-        System.out.println("│ Customer ID: " + String.format("%-62s", selectedOrder.getCustomer().getUserID()) + " │");
+        System.out.println("│ Customer ID: " + String.format("%-62s", selectedOrder.getCustomerId()) + " │");
         System.out.println("│ Order Date: " + String.format("%-63s", selectedOrder.getFormattedOrderDate()) + " │");
         System.out.println("│ Status: " + String.format("%-67s", selectedOrder.getStatus()) + " │");
         System.out.println("│ Total Amount: RM" + String.format("%-59.2f", selectedOrder.getTotalAmount()) + " │");
         System.out.println("│ Shipping Address: " + String.format("%-57s", selectedOrder.getShippingAddress()) + " │");
 
         // Payment information
-        Payment payment = payments.stream()
-                .filter(p -> p.getOrderId().equals(selectedOrder.getOrderId()))
-                .findFirst()
-                .orElse(null);
+        Payment payment = selectedOrder.getPayment() != null
+                ? selectedOrder.getPayment()
+                : JsonDataHandler.findPaymentForOrder(selectedOrder.getOrderId());
 
         if (payment != null) {
             System.out.println("│ Payment Method: " + String.format("%-61s", payment.getPaymentMethod()) + " │");
@@ -854,9 +907,9 @@ public class UserMenu {
         for (int i = 0; i < items.size(); i++) {
             CartItem item = items.get(i);
             System.out.println("│ " + String.format("%-3d", i + 1) + " │ " +
-                    String.format("%-28s", item.getProduct().getProdName()) +
+                    String.format("%-28s", item.getProductName()) +
                     " │ " + String.format("%-10d", item.getQuantity()) +
-                    " │ " + String.format("%-10.2f", item.getProduct().getSellingPrice()) +
+                    " │ " + String.format("%-10.2f", item.getPrice()) +
                     " │ " + String.format("%-12.2f", item.getSubtotal()) + " │");
         }
 
@@ -916,26 +969,43 @@ public class UserMenu {
         order.setStatus(newStatus);
 
         // Save changes
-        JsonDataHandler.saveOrdersList(orders);
-
-        Customer customer = order.getCustomer();
-        List<Order> updatedOrderHistory = JsonDataHandler.getOrderHistory(customer);
-        customer.setOrderHistory(updatedOrderHistory);
-    
-        // Save the updated customer list to persist the changes
-        JsonDataHandler.saveCustomersList(customers);
+        recordOrderChange(order);
 
         System.out.println("Order status updated successfully to: " + newStatus);
     }
         
 
+    /**
+     * Replaces the matching order in the in-memory list and order index (or adds it if new)
+     * and marks only that order for the next flush.
+     * @param order The order that was created or modified
+     */
+    private void recordOrderChange(Order order) {
+        Order previous = orderIndex.put(order);
+        if (previous == null) {
+            orders.add(order);
+        } else if (previous != order) {
+            orders.set(orders.indexOf(previous), order);
+        }
+        persistence.markDirty(Store.ORDERS, order.getOrderId(), order);
+    }
+
+    private void markCustomerDirty(Customer customer) {
+        persistence.markDirty(Store.CUSTOMERS, customer.getUserID(), customer);
+    }
+
+    private void markCartDirty(Customer customer) {
+        persistence.markDirty(Store.CARTS, customer.getUserID(),
+                new CartRecord(customer.getCart(), customer.getWishlist()));
+    }
+
     private void manageProductsMenu() {
         if (!(currentUser instanceof Admin)) {
             System.out.println("Access denied. Admin privileges required.");
             return;
         }
 
-        List<Product> products = JsonDataHandler.getProductsList();
+        List<Product> products = productListing.getProducts();
         if (products == null || products.isEmpty()) {
             System.out.println("No products available.");
             return;
@@ -979,8 +1049,8 @@ public class UserMenu {
     }
 
     public void viewAllProducts() {
-        // Get all products from the JSON file
-        List<Product> products = JsonDataHandler.getProductsList();
+        // Same list and order that update and delete select from
+        List<Product> products = productListing.getProducts();
 
         // Debug output to check how many products are being loaded
         System.out.println("Debug: Total products loaded: " + products.size());
@@ -1056,13 +1126,15 @@ public class UserMenu {
                 customer.getCart().addItem(selectedProduct, quantity);
 
                 System.out.println("Cart total: RM" + String.format("%.2f", customer.getCart().getTotalAmount()));
-                JsonDataHandler.saveCustomersList(customers);
+                markCartDirty(customer);
                 break;
             }
 
             case 2 -> {
-                customer.getWishlist().addItem(selectedProduct);
-                JsonDataHandler.saveCustomersList(customers);
+                if (customer.getWishlist().addItem(selectedProduct)) {
+                    wishlistIndex.add(selectedProduct.getProdID(), customer);
+                    markCartDirty(customer);
+                }
                 break;
             }
 
@@ -1074,10 +1146,7 @@ public class UserMenu {
     }
 
     public void productMenu() {
-        // Load products from JSON or use sample products if needed
-        List<Product> products = JsonDataHandler.getProductsList();
-
-        ProductListing productListing = new ProductListing(products);
+        List<Product> products = productListing.getProducts();
 
         int choice;
         do {
@@ -1089,15 +1158,16 @@ public class UserMenu {
             System.out.println("| 3. Search Product by Category          |");
             System.out.println("| 4. Sort Products by Price Ascending    |");
             System.out.println("| 5. Sort Products by Price Descending   |");
-            System.out.println("| 6. Back                                |");
+            System.out.println("| 6. Filter Products by Specs            |");
+            System.out.println("| 7. Back                                |");
             System.out.println("==========================================");
 
-            choice = MenuUtils.validateDigit(1, 6);
+            choice = MenuUtils.validateDigit(1, 7);
             int productIndex;
 
             switch (choice) {
                 case 1:
-                    viewProducts(JsonDataHandler.getProductsList());
+                    viewProducts(products);
                     System.out.println("Select a product to view details (or 0 to go back): ");
                     productIndex = MenuUtils.validateDigit(0, products.size());
                     if (productIndex > 0) {
@@ -1193,7 +1263,28 @@ public class UserMenu {
                     }
                     break;
                     
-                case 6:    
+                case 6:
+                    List<Product> foundBySpecs = filterProductsBySpecs();
+                    if (foundBySpecs == null) {
+                        break;
+                    }
+                    viewProducts(foundBySpecs);
+                    System.out.println("Select a product to view details (or 0 to go back): ");
+                    productIndex = MenuUtils.validateDigit(0, foundBySpecs.size());
+                    if (productIndex > 0) {
+                        Product selectedProduct = foundBySpecs.get(productIndex - 1);
+                        System.out.println("┌─────────────────────────────────────────────────┐");
+                        System.out.println("|                 Product Details                 |");
+                        System.out.println("├─────────────────────────────────────────────────┤");
+                        System.out.println(selectedProduct.getDetails());
+                        System.out.println("└─────────────────────────────────────────────────┘");
+                        promptProductActions(selectedProduct);
+                    } else {
+                        System.out.println("Returning to product menu...");
+                    }
+                    break;
+
+                case 7:
                     return;
 
                 default:
@@ -1202,6 +1293,67 @@ public class UserMenu {
         } while (choice != 5);
     }
 
+    /**
+     * Asks for a product type and then a value for each of its specs, showing how many of the
+     * products still matching have each value. Numeric specs are picked as a minimum.
+     * Reads the session's facet index, which admin product changes keep current.
+     * @return The matching products, or null if the customer went back
+     */
+    private List<Product> filterProductsBySpecs() {
+        System.out.println("\n==========================================");
+        System.out.println("|         Filter Products by Specs       |");
+        System.out.println("==========================================");
+        System.out.println("| 1. Laptops                             |");
+        System.out.println("| 2. Mice                                |");
+        System.out.println("| 3. Accessories                         |");
+        System.out.println("| 4. Back                                |");
+        System.out.println("==========================================");
+
+        Class<? extends Product> productType;
+        switch (MenuUtils.validateDigit(1, 4)) {
+            case 1 -> productType = Laptop.class;
+            case 2 -> productType = Mouse.class;
+            case 3 -> productType = Accessory.class;
+            default -> {
+                return null;
+            }
+        }
+
+        ProductFacetIndex facetIndex = productListing.getFacetIndex();
+        Map<Facet, List<String>> values = new EnumMap<>(Facet.class);
+        Map<Facet, ProductFacetIndex.Range> ranges = new EnumMap<>(Facet.class);
+        values.put(Facet.CATEGORY, List.of(productType.getSimpleName()));
+        BitSet matches = facetIndex.match(values, ranges);
+
+        for (Facet facet : Facet.of(productType)) {
+            Map<String, Integer> counts = facetIndex.counts(facet, matches);
+            if (counts.size() < 2) {
+                continue; // Nothing to choose between
+            }
+            List<String> options = new ArrayList<>(counts.keySet());
+            System.out.println("\n" + facet.getLabel() + (facet.isNumeric() ? " (at least)" : "") + ":");
+            for (int i = 0; i < options.size(); i++) {
+                System.out.printf("  %d. %s (%d)%n", i + 1, options.get(i), counts.get(options.get(i)));
+            }
+            System.out.println("  0. Any");
+            int option = MenuUtils.validateDigit(0, options.size());
+            if (option == 0) {
+                continue;
+            }
+            String value = options.get(option - 1);
+            if (facet.isNumeric()) {
+                ranges.put(facet, new ProductFacetIndex.Range(Integer.parseInt(value), Integer.MAX_VALUE));
+            } else {
+                values.put(facet, List.of(value));
+            }
+            matches = facetIndex.match(values, ranges);
+        }
+
+        List<Product> found = facetIndex.products(matches);
+        System.out.println("Found " + found.size() + " matching products.");
+        return found;
+    }
+
     public void viewProducts(List<Product> products) {
         if (products.isEmpty()) {
             System.out.println("No products available.");
@@ -1283,7 +1435,7 @@ public class UserMenu {
                     System.out.println("Logged out successfully.");
                     return; // Return to main menu
                 case 8:
-                    JsonDataHandler.saveCustomersList(customers);
+                    closeStorage();
                     System.out.println("Thank you for shopping with GSports!");
                     System.out.println("Exiting...");
                     MenuUtils.closeScanner();
@@ -1362,6 +1514,7 @@ public class UserMenu {
                         int quantity = Integer.parseInt(scanner.nextLine());
                         if (quantity > 0 && quantity <= selectedProduct.getStock()) {
                             customer.getCart().addItem(selectedProduct, quantity);
+                            markCartDirty(customer);
                         } else {
                             System.out.println("Invalid quantity or insufficient stock.");
                         }
@@ -1376,7 +1529,11 @@ public class UserMenu {
                 try {
                     int itemIndex = Integer.parseInt(scanner.nextLine()) - 1;
                     if (itemIndex >= 0 && itemIndex < items.size()) {
-                        customer.getWishlist().removeItem(items.get(itemIndex).getProdID());
+                        String productId = items.get(itemIndex).getProdID();
+                        if (customer.getWishlist().removeItem(productId)) {
+                            wishlistIndex.remove(productId, customer);
+                            markCartDirty(customer);
+                        }
                     } else {
                         System.out.println("Invalid item number.");
                     }
@@ -1431,8 +1588,8 @@ public class UserMenu {
                 currentQuantity = item.getQuantity();
                 System.out.println("Current quantity: " + currentQuantity);
 
-                // Check available stock first
-                if (product.getStock() <= 0) {
+                // Check available stock first (the product may also have been removed from the catalog)
+                if (product == null || product.getStock() <= 0) {
                     System.out.println("Sorry, this product is currently out of stock.");
                     System.out.println("You can keep your current quantity of " + currentQuantity + " or remove the item.");
                     System.out.println("Would you like to remove this item from your cart? (Y/N)");
@@ -1543,7 +1700,8 @@ public class UserMenu {
 
             case 5:
                 return;
-            }        
+            }
+            markCartDirty(customer);
         }
    
 
@@ -1569,14 +1727,14 @@ public class UserMenu {
         
         for (int i = 0; i < items.size(); i++) {
             CartItem item = items.get(i);
-            String productName = item.getProduct().getProdName().length() > 27 ? 
-                                item.getProduct().getProdName().substring(0, 24) + "..." : 
-                                item.getProduct().getProdName();
+            String productName = item.getProductName().length() > 27 ? 
+                                item.getProductName().substring(0, 24) + "..." : 
+                                item.getProductName();
                                 
             System.out.printf("│ %-2d │ %-29s │ RM%-7.2f │ %-7d │ RM%-8.2f │\n",
                     i + 1,                // Item number (1-based)
                     productName,          // Product name (shortened if needed)
-                    item.getProduct().getSellingPrice(),
+                    item.getPrice(),
                     item.getQuantity(),
                     item.getSubtotal());
         }
@@ -1591,10 +1749,8 @@ public class UserMenu {
     }
 
     private void logout() {
-        JsonDataHandler.saveCustomersList(customers);
-        JsonDataHandler.saveAdminsList(admins);
-        JsonDataHandler.saveOrdersList(orders);
-        JsonDataHandler.savePaymentsList(payments);
+        // Write whatever is still pending; stores without changes are left alone
+        persistence.flush();
         currentUser = null;
         System.out.println("Logged out successfully.");
     }
@@ -1624,6 +1780,8 @@ public class UserMenu {
 
             if (choice.equals("Y")) {
                 editProfile(customer);
+                emailIndex.update(customer);
+                markCustomerDirty(customer);
             }
         }
     }
@@ -1734,11 +1892,8 @@ public class UserMenu {
         Customer customer = (Customer) currentUser;
         System.out.println("User ID: " + customer.getUserID());
 
-        // Always fetch the latest order history directly from the database
-        List<Order> userOrders = JsonDataHandler.getOrderHistory(customer);
-
-        // Update the customer's order history with the latest data
-        customer.setOrderHistory(userOrders);
+        // Resolved from the loaded orders the first time it is read
+        List<Order> userOrders = customer.getOrderHistory();
 
         if (userOrders == null || userOrders.isEmpty()) {
             System.out.println("You have no orders yet.");
@@ -1900,27 +2055,26 @@ public class UserMenu {
 
                 // Save payment
                 payments.add(payment);
-                JsonDataHandler.savePaymentsList(payments);
+                persistence.markDirty(Store.PAYMENTS, payment.getPaymentId(), payment);
 
                 // Save order
-                orders.add(order);
-                JsonDataHandler.saveOrdersList(orders);
+                recordOrderChange(order);
 
-                // Update product stock
-                List<Product> allProducts = JsonDataHandler.getProductsList();
+                // Update product stock; only the ordered products are written
                 for (CartItem item : cart.getItems()) {
                     Product product = item.getProduct();
+                    if (product == null) {
+                        continue; // No longer in the catalog
+                    }
                     int newStock = product.getStock() - item.getQuantity();
                     product.setStock(newStock);
-                    allProducts.add(product); // Update only the ordered products
+                    JsonDataHandler.saveProduct(product);
                 }
 
-            // Save all products back to the database
-            JsonDataHandler.saveProductsList(allProducts);
-
-                // Clear the cart
+                // Clear the cart; the profile changed too, as it lists the new order
                 cart.clearCart();
-                JsonDataHandler.saveCustomersList(customers);
+                markCartDirty(customer);
+                markCustomerDirty(customer);
 
 
                 System.out.println("\nOrder placed successfully!");
@@ -2022,24 +2176,8 @@ public class UserMenu {
                     // Update order status to PAID if refund window expires
                     order.setStatus(Order.OrderStatus.PAID);
                     
-                    // Update the order in the orders list
-                    for (int i = 0; i < orders.size(); i++) {
-                        if (orders.get(i).getOrderId().equals(order.getOrderId())) {
-                            orders.set(i, order);
-                            break;
-                        }
-                    }
-                    
-                    // Save changes to JSON
-                    JsonDataHandler.saveOrdersList(orders);
-                    
-                    // Update the customer's order history if applicable
-                    if (currentUser instanceof Customer) {
-                        Customer customer = (Customer) currentUser;
-                        List<Order> updatedOrderHistory = JsonDataHandler.getOrderHistory(customer);
-                        customer.setOrderHistory(updatedOrderHistory);
-                        JsonDataHandler.saveCustomersList(customers);
-                    }
+                    // Update the order in the orders list and save the change
+                    recordOrderChange(order);
                     
                     System.out.println("Refund window has expired. Order status updated to PAID.");
                 }
@@ -2053,10 +2191,9 @@ public class UserMenu {
                 System.out.println("| Total Amount: RM" + String.format("%.2f", order.getFinalAmount()));
                 System.out.println("| Shipping Address: " + order.getShippingAddress());
         
-                Payment payment = payments.stream()
-                        .filter(p -> p.getOrderId().equals(order.getOrderId()))
-                        .findFirst()
-                        .orElse(null);
+                Payment payment = order.getPayment() != null
+                        ? order.getPayment()
+                        : JsonDataHandler.findPaymentForOrder(order.getOrderId());
                 if (payment != null) {
                     System.out.println("| Payment Method: " + payment.getPaymentMethod());
                     System.out.println("| Payment Status: " + payment.getPaymentStatus());
@@ -2102,10 +2239,9 @@ public class UserMenu {
                 System.out.println("------------------------------------------------------------------");
         
                 for (CartItem item : order.getItems()) {
-                    Product product = item.getProduct();
                     System.out.printf("%-30s RM%-9.2f %-10d RM%-9.2f\n",
-                            product.getProdName(),
-                            product.getSellingPrice(),
+                            item.getProductName(),
+                            item.getPrice(),
                             item.getQuantity(),
                             item.getSubtotal());
                 }
@@ -2240,7 +2376,7 @@ private void finalizeOrder(Order order) {
         order.setStatus(Order.OrderStatus.COMPLETED);
 
         // Save changes
-        JsonDataHandler.saveOrdersList(orders);
+        recordOrderChange(order);
 
         System.out.println("Order has been finalized successfully!");
         System.out.println("Thank you for shopping with GSports!");
@@ -2285,24 +2421,10 @@ private void requestRefund(Order order, Payment payment) {
             payment.setPaymentStatus(Payment.PaymentStatus.CANCEL_REQUESTED);
         }
 
-        // Find and update the order in the global orders list
-        for (int i = 0; i < orders.size(); i++) {
-            if (orders.get(i).getOrderId().equals(order.getOrderId())) {
-                orders.set(i, order);
-                break;
-            }
-        }
-
-        // Save changes
-        JsonDataHandler.saveOrdersList(orders);
-        JsonDataHandler.savePaymentsList(payments);
-
-        // Update the customer's order history to reflect the change
-        if (currentUser instanceof Customer) {
-            Customer customer = (Customer) currentUser;
-            List<Order> updatedOrderHistory = JsonDataHandler.getOrderHistory(customer);
-            customer.setOrderHistory(updatedOrderHistory);
-            JsonDataHandler.saveCustomersList(customers);
+        // Find and update the order in the global orders list, then save changes
+        recordOrderChange(order);
+        if (payment != null) {
+            persistence.markDirty(Store.PAYMENTS, payment.getPaymentId(), payment);
         }
 
         System.out.println("Cancellation requested successfully. Your order status is now CANCELLED.");
@@ -2447,8 +2569,9 @@ private void requestRefund(Order order, Payment payment) {
             }
             
             if (newProduct != null) {
-                products.add(newProduct);
-                JsonDataHandler.saveProductsList(products);
+                productListing.addProduct(newProduct);
+                JsonDataHandler.saveProduct(newProduct);
+                catalog.put(newProduct.getProdID(), newProduct);
                 System.out.println("Product added successfully!");
             } else {
                 System.out.println("Failed to add product. Please try again.");
@@ -2501,10 +2624,17 @@ private void requestRefund(Order order, Payment payment) {
         String stockInput = scanner.nextLine();
         if (!stockInput.isEmpty()) product.setStock(Integer.parseInt(stockInput));
         
-        // No need to put back in list, the product reference is already updated
-        JsonDataHandler.saveProductsList(products);
+        // The product is edited in place; re-index it for search, filters and sorting
+        productListing.updateProduct(product);
+        JsonDataHandler.saveProduct(product);
+        // Wishlists show the updated price and stock from the catalog
+        catalog.put(product.getProdID(), product);
         
         System.out.println("Product updated successfully!");
+        int wanting = wishlistIndex.countWanting(product.getProdID());
+        if (wanting > 0) {
+            System.out.println("This product is in " + wanting + " customer wishlist(s).");
+        }
     }
 
     public void deleteProduct(List<Product> products) {
@@ -2512,8 +2642,16 @@ private void requestRefund(Order order, Payment payment) {
         int productIndex = MenuUtils.validateDigit(1, products.size()) - 1;
         
         if (productIndex >= 0 && productIndex < products.size()) {
-            products.remove(productIndex);
-            JsonDataHandler.saveProductsList(products);
+            Product removed = products.get(productIndex);
+            productListing.removeProduct(removed);
+            JsonDataHandler.removeProduct(removed.getProdID());
+            catalog.remove(removed.getProdID());
+            // Take the product off the wishlists that have it, found through the wishlist index
+            for (Customer customer : wishlistIndex.customersWanting(removed.getProdID())) {
+                customer.getWishlist().removeDiscontinued(removed.getProdID());
+                wishlistIndex.remove(removed.getProdID(), customer);
+                markCartDirty(customer);
+            }
             System.out.println("Product removed successfully!");
         } else {
             System.out.println("Invalid product selection.");
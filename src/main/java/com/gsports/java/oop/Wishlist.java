@@ -1,24 +1,39 @@
 package com.gsports.java.oop;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
-import java.util.Scanner;
+import java.util.function.Function;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * A customer's wishlist, kept as product IDs and resolved from the loaded catalog when read,
+ * so it always shows the current price and stock. Stored as "productIds"; older files that
+ * embedded whole products in "items" are read by taking their IDs.
+ */
 public class Wishlist {
+    // Finds a product by ID; set by StartupLoader to the loaded catalog
+    private static volatile Function<String, Product> catalog = productId -> null;
+
     private String wishlistId;
     private String userId;
-    private List<Product> items;
+    private final Set<String> productIds = new LinkedHashSet<>();
 
     public Wishlist() {
         this.wishlistId = generateWishlistId();
-        this.items = new ArrayList<>();
     }
 
     public Wishlist(String userId) {
         this.wishlistId = generateWishlistId();
         this.userId = userId;
-        this.items = new ArrayList<>();
+    }
+
+    public static void setCatalog(Function<String, Product> productCatalog) {
+        catalog = productCatalog;
     }
 
     // Setters and getters
@@ -30,51 +45,96 @@ public class Wishlist {
         return userId;
     }
 
+    /**
+     * @return The wishlisted products from the catalog, in the order they were added;
+     *         products no longer in the catalog are left out
+     */
+    @JsonIgnore
     public List<Product> getItems() {
+        List<Product> items = new ArrayList<>(productIds.size());
+        for (String productId : productIds) {
+            Product product = catalog.apply(productId);
+            if (product != null) {
+                items.add(product);
+            }
+        }
         return items;
     }
 
+    @JsonProperty("productIds")
+    public List<String> getProductIds() {
+        return new ArrayList<>(productIds);
+    }
+
+    @JsonProperty("productIds")
+    public void setProductIds(List<String> ids) {
+        productIds.clear();
+        productIds.addAll(ids);
+    }
+
+    // Older files stored full product copies; only their IDs are kept
+    @JsonProperty(value = "items", access = JsonProperty.Access.WRITE_ONLY)
+    private void setLegacyItems(List<Product> products) {
+        for (Product product : products) {
+            if (product != null && product.getProdID() != null) {
+                productIds.add(product.getProdID());
+            }
+        }
+    }
+
+    public boolean contains(String productId) {
+        return productIds.contains(productId);
+    }
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return productIds.isEmpty();
+    }
+
     private String generateWishlistId() {
         return "WISH-" + UUID.randomUUID().toString().substring(0, 8);
     }
 
-    public void addItem(Product product) {
+    /**
+     * @return true if the product was added, false if it was missing or already in the wishlist
+     */
+    public boolean addItem(Product product) {
         if (product == null) {
             System.out.println("Sorry, we couldn't find that product.");
-            return;
+            return false;
         }
 
-        // Check if product already exists in wishlist
-        for (Product item : items) {
-            if (item.getProdID().equals(product.getProdID())) {
-                System.out.println(product.getProdName() + " is already in your wishlist.");
-                return;
-            }
+        if (!productIds.add(product.getProdID())) {
+            System.out.println(product.getProdName() + " is already in your wishlist.");
+            return false;
         }
-
-        // Add new product to wishlist
-        items.add(product);
         System.out.println(product.getProdName() + " has been added to your wishlist.");
+        return true;
     }
 
-    public void removeItem(String productId) {
-        String removedProductName = "";
-
-        for (Product item : items) {
-            if (item.getProdID().equals(productId)) {
-                removedProductName = item.getProdName();
-                break;
-            }
-        }
-        items.removeIf(item -> item.getProdID().equals(productId));
-        if (!removedProductName.isEmpty()) {
-            System.out.println(removedProductName + " has been removed from your wishlist.");
-        } else {
-            System.out.println("That item wasn't in your wishlist.");
+    /**
+     * @return true if the product was in the wishlist
+     */
+    public boolean removeItem(String productId) {
+        if (productIds.remove(productId)) {
+            Product product = catalog.apply(productId);
+            System.out.println((product != null ? product.getProdName() : productId) + " has been removed from your wishlist.");
+            return true;
         }
+        System.out.println("That item wasn't in your wishlist.");
+        return false;
+    }
+
+    /**
+     * Quietly removes a product that has left the catalog.
+     * @return true if the product was in the wishlist
+     */
+    public boolean removeDiscontinued(String productId) {
+        return productIds.remove(productId);
     }
 
     public String displayWishlist() {
+        List<Product> items = getItems();
         if (items.isEmpty()) {
             return "┌─────────────────────────────────────────────────┐\n" +
                    "│               Your wishlist is empty            │\n" +
@@ -0,0 +1,57 @@
+package com.gsports.java.oop;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Which customers have each product in their wishlist, so a product's interested customers
+ * are found without going through every customer's wishlist.
+ * Kept current by add() and remove() whenever a wishlist changes.
+ */
+public final class WishlistIndex {
+    private final Map<String, Set<Customer>> customersByProduct = new HashMap<>();
+
+    public WishlistIndex(Collection<User> customers) {
+        for (User user : customers) {
+            if (user instanceof Customer && ((Customer) user).getWishlist() != null) {
+                Customer customer = (Customer) user;
+                for (String productId : customer.getWishlist().getProductIds()) {
+                    add(productId, customer);
+                }
+            }
+        }
+    }
+
+    public synchronized void add(String productId, Customer customer) {
+        customersByProduct.computeIfAbsent(productId, id -> new LinkedHashSet<>()).add(customer);
+    }
+
+    public synchronized void remove(String productId, Customer customer) {
+        Set<Customer> customers = customersByProduct.get(productId);
+        if (customers != null) {
+            customers.remove(customer);
+            if (customers.isEmpty()) {
+                customersByProduct.remove(productId);
+            }
+        }
+    }
+
+    /**
+     * @return The customers with the product in their wishlist; empty if there are none
+     */
+    public synchronized List<Customer> customersWanting(String productId) {
+        Set<Customer> customers = customersByProduct.get(productId);
+        return customers == null ? Collections.emptyList() : Collections.unmodifiableList(new ArrayList<>(customers));
+    }
+
+    public synchronized int countWanting(String productId) {
+        Set<Customer> customers = customersByProduct.get(productId);
+        return customers == null ? 0 : customers.size();
+    }
+}